@@ -0,0 +1,38 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Benchmark driver for asynchronous clients. Instead of blocking in {@link #test(Map)}, the driver
+ * starts an operation and returns a stage that is completed when the operation is done. Each worker
+ * thread keeps up to {@link BenchmarkConfiguration#asyncInFlight()} operations in flight, latency is
+ * recorded when the stage completes.
+ */
+public interface BenchmarkAsyncDriver extends BenchmarkDriver {
+    /**
+     * Starts operation or group of operations that are to be benchmarked. The returned stage may be
+     * completed by any thread, but {@code ctx} is accessed by the worker thread only, so the driver
+     * should not touch it from completion callbacks.
+     *
+     * @param ctx Thread local map.
+     * @return Stage completed with {@code false} if some condition is fulfilled and the driver should be shutdown,
+     *      with {@code true} otherwise, or completed exceptionally if the operation failed.
+     * @throws Exception If failed to start the operation.
+     */
+    public CompletionStage<Boolean> testAsync(Map<Object, Object> ctx) throws Exception;
+}
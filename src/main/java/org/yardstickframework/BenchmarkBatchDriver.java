@@ -0,0 +1,36 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework;
+
+import java.util.Map;
+
+/**
+ * Benchmark driver that executes operations in batches. Timing and probe bookkeeping are done once
+ * per batch of {@link BenchmarkConfiguration#testBatch()} operations, which keeps the framework overhead
+ * low for operations that take less than a microsecond. Probes report operations per second and mean
+ * latency per operation.
+ */
+public interface BenchmarkBatchDriver extends BenchmarkDriver {
+    /**
+     * Executes a batch of operations that are to be benchmarked.
+     *
+     * @param ctx Thread local map.
+     * @param n Number of operations to execute.
+     * @return Number of executed operations. Value less than {@code n} means that some condition is fulfilled
+     *      and the driver should be shutdown.
+     * @throws Exception If failed.
+     */
+    public int testBatch(Map<Object, Object> ctx, int n) throws Exception;
+}
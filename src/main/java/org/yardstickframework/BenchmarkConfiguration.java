@@ -75,6 +75,11 @@ public class BenchmarkConfiguration implements Serializable {
     @Parameter(names = {"-t", "--threads"}, description = "Thread count (set to 'cpus * 2')")
     private int threads = Runtime.getRuntime().availableProcessors() * 2;
 
+    /** */
+    @Parameter(names = {"-vt", "--virtualThreads"},
+        description = "Run benchmark workers as virtual threads (requires Java 21 or later)")
+    private boolean virtualThreads;
+
     /** */
     @Parameter(names = {"-d", "--duration"}, description = "Duration, in seconds")
     private long duration = 40;
@@ -87,6 +92,36 @@ public class BenchmarkConfiguration implements Serializable {
     @Parameter(names = {"-ops", "--operations"}, description = "Operations (0 is infinite, default)")
     private int opsCnt;
 
+    /** */
+    @Parameter(names = {"-r", "--rate"},
+        description = "Target operations per second across all threads (0 is unlimited, default)")
+    private long rate;
+
+    /** */
+    @Parameter(names = {"-aif", "--asyncInFlight"},
+        description = "Maximum number of asynchronous driver operations in flight per thread")
+    private int asyncInFlight = 1;
+
+    /** */
+    @Parameter(names = {"-tb", "--testBatch"},
+        description = "Number of operations per invocation of batch drivers")
+    private int testBatch = 1;
+
+    /** */
+    @Parameter(names = {"-sd", "--seed"},
+        description = "Seed of worker random generators, combined with member ID and thread index (0 is random)")
+    private long seed;
+
+    /** */
+    @Parameter(names = {"-ls", "--latencySampling"},
+        description = "Time one of every N synchronous operations for latency probes, all are counted (1 is all, default)")
+    private int latencySampling = 1;
+
+    /** */
+    @Parameter(names = {"-lsr", "--latencySamplingRandom"},
+        description = "Time randomly chosen operations with probability 1/N instead of every N-th one")
+    private boolean latencySamplingRandom;
+
     /** */
     @Parameter(names = {"-sh", "--shutdown"}, description = "Invoke shutdown hook")
     private boolean shutdownHook = true;
@@ -195,6 +230,20 @@ public class BenchmarkConfiguration implements Serializable {
         this.threads = threads;
     }
 
+    /**
+     * @return {@code True} if benchmark workers are run as virtual threads.
+     */
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @param virtualThreads {@code True} if benchmark workers should be run as virtual threads.
+     */
+    public void virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * @return Duration, in seconds.
      */
@@ -223,6 +272,90 @@ public class BenchmarkConfiguration implements Serializable {
         this.opsCnt = opsCnt;
     }
 
+    /**
+     * @return Target operations per second across all threads, {@code 0} if not limited.
+     */
+    public long rate() {
+        return rate;
+    }
+
+    /**
+     * @param rate Target operations per second across all threads, {@code 0} if not limited.
+     */
+    public void rate(long rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * @return Maximum number of asynchronous driver operations in flight per thread.
+     */
+    public int asyncInFlight() {
+        return asyncInFlight;
+    }
+
+    /**
+     * @param asyncInFlight Maximum number of asynchronous driver operations in flight per thread.
+     */
+    public void asyncInFlight(int asyncInFlight) {
+        this.asyncInFlight = asyncInFlight;
+    }
+
+    /**
+     * @return Number of operations per invocation of batch drivers.
+     */
+    public int testBatch() {
+        return testBatch;
+    }
+
+    /**
+     * @param testBatch Number of operations per invocation of batch drivers.
+     */
+    public void testBatch(int testBatch) {
+        this.testBatch = testBatch;
+    }
+
+    /**
+     * @return Seed of worker random generators, {@code 0} if random.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @param seed Seed of worker random generators, {@code 0} if random.
+     */
+    public void seed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return Latency sampling interval, one of every so many operations is timed.
+     */
+    public int latencySampling() {
+        return latencySampling;
+    }
+
+    /**
+     * @param latencySampling Latency sampling interval, one of every so many operations is timed.
+     */
+    public void latencySampling(int latencySampling) {
+        this.latencySampling = latencySampling;
+    }
+
+    /**
+     * @return Whether timed operations are chosen randomly rather than every {@link #latencySampling()}-th.
+     */
+    public boolean latencySamplingRandom() {
+        return latencySamplingRandom;
+    }
+
+    /**
+     * @param latencySamplingRandom Whether timed operations are chosen randomly.
+     */
+    public void latencySamplingRandom(boolean latencySamplingRandom) {
+        this.latencySamplingRandom = latencySamplingRandom;
+    }
+
     /**
      * @return Log frequency.
      */
@@ -416,7 +549,7 @@ public class BenchmarkConfiguration implements Serializable {
      * @return Default description.
      */
     public String defaultDescription() {
-        return "-t=" + threads + "-d=" + duration + "-w=" + warmup;
+        return "-t=" + threads + (virtualThreads ? "-vt" : "") + "-d=" + duration + "-w=" + warmup + (rate > 0 ? "-r=" + rate : "");
     }
 
     /** {@inheritDoc} */
@@ -426,8 +559,15 @@ public class BenchmarkConfiguration implements Serializable {
             ", driverNames='" + driverNames + '\'' +
             ", serverName='" + serverName + '\'' +
             ", threads=" + threads +
+            ", virtualThreads=" + virtualThreads +
             ", duration=" + duration +
             ", warmup=" + warmup +
+            ", rate=" + rate +
+            ", asyncInFlight=" + asyncInFlight +
+            ", testBatch=" + testBatch +
+            ", seed=" + seed +
+            ", latencySampling=" + latencySampling +
+            ", latencySamplingRandom=" + latencySamplingRandom +
             ", dfltProbeClsNames=" + dfltProbeClsNames +
             ", propsFileName='" + propsFileName + '\'' +
             ", packages=" + packages +
@@ -0,0 +1,133 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Context of a benchmark worker thread.
+ * <p>
+ * Besides being the thread local map passed to {@link BenchmarkDriver#test(java.util.Map)}, the context
+ * has typed slots indexed by {@link Slot}, a fast random generator, thread index and member id. Slot
+ * access is an array lookup, so per-thread resources can be fetched on every operation without boxing,
+ * hashing or allocation. Sub-operations of a test call are recorded with {@link #record(BenchmarkTimer, long)}.
+ * The context is confined to its worker thread.
+ */
+public class BenchmarkContext extends HashMap<Object, Object> {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Index of the next created slot. */
+    private static final AtomicInteger slotIdx = new AtomicInteger();
+
+    /** Worker thread index. */
+    private final int threadIdx;
+
+    /** Member id. */
+    private final int memberId;
+
+    /** Random generator. */
+    private final SplittableRandom rand;
+
+    /** Slot values. */
+    private Object[] slots = new Object[Math.max(8, slotIdx.get())];
+
+    /**
+     * @param threadIdx Worker thread index.
+     * @param memberId Member id.
+     */
+    public BenchmarkContext(int threadIdx, int memberId) {
+        this.threadIdx = threadIdx;
+        this.memberId = memberId;
+
+        rand = new SplittableRandom();
+    }
+
+    /**
+     * Creates context with reproducible random generator, unique for every member and thread.
+     *
+     * @param threadIdx Worker thread index.
+     * @param memberId Member id.
+     * @param seed Seed shared by all members and threads.
+     */
+    public BenchmarkContext(int threadIdx, int memberId, long seed) {
+        this.threadIdx = threadIdx;
+        this.memberId = memberId;
+
+        rand = new SplittableRandom((seed * 31 + memberId) * 31 + threadIdx);
+    }
+
+    /**
+     * @return Worker thread index, from {@code 0} to {@link BenchmarkConfiguration#threads()} exclusive.
+     */
+    public int threadIndex() {
+        return threadIdx;
+    }
+
+    /**
+     * @return Member id.
+     */
+    public int memberId() {
+        return memberId;
+    }
+
+    /**
+     * @return Random generator of this thread.
+     */
+    public SplittableRandom random() {
+        return rand;
+    }
+
+    /**
+     * @param slot Slot.
+     * @return Slot value or {@code null} if not set.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T slot(Slot<T> slot) {
+        return slot.idx < slots.length ? (T)slots[slot.idx] : null;
+    }
+
+    /**
+     * @param slot Slot.
+     * @param val Slot value.
+     */
+    public <T> void slot(Slot<T> slot, T val) {
+        if (slot.idx >= slots.length)
+            slots = Arrays.copyOf(slots, Math.max(slot.idx + 1, slots.length * 2));
+
+        slots[slot.idx] = val;
+    }
+
+    /**
+     * Records sub-operation started at given time and completed now.
+     *
+     * @param timer Timer registered by the driver.
+     * @param startNanos Sub-operation start time, in {@link System#nanoTime()} units.
+     */
+    public void record(BenchmarkTimer timer, long startNanos) {
+        timer.record(threadIdx, startNanos, System.nanoTime());
+    }
+
+    /**
+     * Typed key of a context slot. Slots are usually created once and kept in static fields of drivers.
+     */
+    public static final class Slot<T> {
+        /** Slot index. */
+        private final int idx = slotIdx.getAndIncrement();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework;
+
+/**
+ * Benchmark driver that works with typed {@link BenchmarkContext} and prepares per-thread state once
+ * per worker thread instead of looking it up on every operation.
+ *
+ * @see BenchmarkContextDriverAdapter
+ */
+public interface BenchmarkContextDriver extends BenchmarkDriver {
+    /**
+     * This method is invoked by every worker thread before the first {@link #test(BenchmarkContext)}.
+     * Per-thread resources, like connections or buffers, should be created here and kept in context slots.
+     *
+     * @param ctx Context of the worker thread.
+     * @throws Exception If failed.
+     */
+    public void setUpThread(BenchmarkContext ctx) throws Exception;
+
+    /**
+     * Operation or group of operations that are to be benchmarked.
+     *
+     * @param ctx Context of the worker thread.
+     * @throws Exception If failed.
+     * @return {@code False} if some condition is fulfilled and the driver should be shutdown, {@code true} otherwise.
+     */
+    public boolean test(BenchmarkContext ctx) throws Exception;
+
+    /**
+     * This method is invoked by every worker thread when it stops, even if the benchmark failed.
+     * Per-thread resources should be released here.
+     *
+     * @param ctx Context of the worker thread.
+     * @throws Exception If failed.
+     */
+    public void tearDownThread(BenchmarkContext ctx) throws Exception;
+}
@@ -0,0 +1,37 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework;
+
+import java.util.Map;
+
+/**
+ * Convenient adapter for benchmark driver implementations that use {@link BenchmarkContext}.
+ */
+public abstract class BenchmarkContextDriverAdapter extends BenchmarkDriverAdapter implements BenchmarkContextDriver {
+    /** {@inheritDoc} */
+    @Override public void setUpThread(BenchmarkContext ctx) throws Exception {
+        // No-op.
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean test(Map<Object, Object> ctx) throws Exception {
+        return test((BenchmarkContext)ctx);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void tearDownThread(BenchmarkContext ctx) throws Exception {
+        // No-op.
+    }
+}
@@ -32,7 +32,7 @@ public interface BenchmarkDriver {
     /**
      * Operation or group of operations that are to be benchmarked.
      *
-     * @param ctx Thread local map.
+     * @param ctx Thread local map, it is the {@link BenchmarkContext} of the worker thread.
      * @throws Exception If failed.
      * @return {@code False} if some condition is fulfilled and the driver should be shutdown, {@code true} otherwise.
      */
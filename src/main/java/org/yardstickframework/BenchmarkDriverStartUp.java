@@ -24,6 +24,8 @@ import org.yardstickframework.impl.BenchmarkLoader;
 import org.yardstickframework.impl.BenchmarkProbeSet;
 import org.yardstickframework.impl.BenchmarkRunner;
 
+import static org.yardstickframework.BenchmarkUtils.THREADS_DELIMITER;
+import static org.yardstickframework.BenchmarkUtils.WEIGHT_DELIMITER;
 import static org.yardstickframework.BenchmarkUtils.errorHelp;
 import static org.yardstickframework.BenchmarkUtils.println;
 
@@ -58,6 +60,8 @@ public class BenchmarkDriverStartUp {
 
         List<Integer> weights = new ArrayList<>();
 
+        List<Integer> groups = new ArrayList<>();
+
         Set<String> driverNames = new HashSet<>();
 
         for (String nameWithWeight : names) {
@@ -66,19 +70,41 @@ public class BenchmarkDriverStartUp {
             if (nameWithWeight.isEmpty())
                 continue;
 
-            String[] tokens = nameWithWeight.split(":");
+            String name = BenchmarkUtils.driverName(nameWithWeight);
+
+            if (nameWithWeight.contains(THREADS_DELIMITER)) {
+                String threads = nameWithWeight.substring(nameWithWeight.indexOf(THREADS_DELIMITER) + 1).trim();
+
+                try {
+                    int threadsNum = Integer.parseInt(threads);
 
-            String name = tokens[0].trim();
+                    if (threadsNum <= 0)
+                        throw new NumberFormatException();
 
-            String weight = tokens.length == 1 ? "1" : tokens[1].trim();
+                    groups.add(threadsNum);
+                }
+                catch (NumberFormatException ignored) {
+                    errorHelp(cfg, "Can not parse driver thread group size [driver=" + name +
+                        ", threads=" + threads + "]");
+
+                    return;
+                }
 
-            try {
-                weights.add(Integer.parseInt(weight));
+                weights.add(1);
             }
-            catch (NumberFormatException ignored) {
-                errorHelp(cfg, "Can not parse driver run weight [driver=" + name + ", weight=" + weight + "]");
+            else {
+                String[] tokens = nameWithWeight.split(WEIGHT_DELIMITER);
 
-                return;
+                String weight = tokens.length == 1 ? "1" : tokens[1].trim();
+
+                try {
+                    weights.add(Integer.parseInt(weight));
+                }
+                catch (NumberFormatException ignored) {
+                    errorHelp(cfg, "Can not parse driver run weight [driver=" + name + ", weight=" + weight + "]");
+
+                    return;
+                }
             }
 
             BenchmarkDriver drv = ldr.loadClass(BenchmarkDriver.class, name);
@@ -108,6 +134,29 @@ public class BenchmarkDriverStartUp {
             return;
         }
 
+        if (!groups.isEmpty() && groups.size() < drivers.size()) {
+            errorHelp(cfg, "Thread group size must be specified for all drivers or for none of them.");
+
+            return;
+        }
+
+        int[] groups0 = null;
+
+        if (!groups.isEmpty()) {
+            groups0 = new int[groups.size()];
+
+            int threads = 0;
+
+            for (int i = 0; i < groups.size(); i++) {
+                groups0[i] = groups.get(i);
+
+                threads += groups0[i];
+            }
+
+            // Each group runs its own threads, the total is what probes and drivers see.
+            cfg.threads(threads);
+        }
+
         if (cfg.help()) {
             println(cfg, drivers.get(0).usage());
 
@@ -152,7 +201,7 @@ public class BenchmarkDriverStartUp {
             weights0[i] = weights.get(i);
 
         final BenchmarkRunner runner = new BenchmarkRunner(cfg, drivers.toArray(new BenchmarkDriver[drivers.size()]),
-            probeSets, weights0);
+            probeSets, weights0, groups0);
 
         if (cfg.shutdownHook()) {
             Runtime.getRuntime().addShutdownHook(new Thread() {
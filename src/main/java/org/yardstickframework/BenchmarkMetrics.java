@@ -0,0 +1,290 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package org.yardstickframework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.yardstickframework.probes.LatencyHistogram;
+
+/**
+ * Registry of domain metrics of a driver, such as cache hit count, rows scanned or retries.
+ * <p>
+ * Metrics are registered in {@link BenchmarkDriver#setUp(BenchmarkConfiguration)} and kept in driver fields,
+ * then updated from test calls. Counters and distributions are striped by worker thread index and updating
+ * them does not allocate. Metrics of a driver are sampled on the probe point schedule by
+ * {@link org.yardstickframework.probes.MetricsProbe}, which is added to the probes of the driver
+ * automatically if it registered any metric.
+ */
+public final class BenchmarkMetrics {
+    /** Registries of drivers. */
+    private static final Map<BenchmarkDriver, BenchmarkMetrics> registries =
+        Collections.synchronizedMap(new WeakHashMap<BenchmarkDriver, BenchmarkMetrics>());
+
+    /** Number of counter stripes, power of two. */
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+
+    /** Cell length in longs, two cache lines to also defeat adjacent line prefetch. */
+    private static final int CELL_LEN = 16;
+
+    /** Highest value of distributions. */
+    private static final long DISTRIBUTION_HIGHEST = Long.MAX_VALUE / 4;
+
+    /** Significant digits of distributions. */
+    private static final int DISTRIBUTION_DIGITS = 2;
+
+    /** Registered metrics. */
+    private final List<Metric> metrics = new ArrayList<>();
+
+    /**
+     * Use {@link #of(BenchmarkDriver)}.
+     */
+    private BenchmarkMetrics() {
+        // No-op.
+    }
+
+    /**
+     * @param drv Driver.
+     * @return Metrics registry of the driver.
+     */
+    public static BenchmarkMetrics of(BenchmarkDriver drv) {
+        synchronized (registries) {
+            BenchmarkMetrics res = registries.get(drv);
+
+            if (res == null)
+                registries.put(drv, res = new BenchmarkMetrics());
+
+            return res;
+        }
+    }
+
+    /**
+     * @param name Counter name.
+     * @return New counter or already registered counter with the same name.
+     */
+    public Counter counter(String name) {
+        return register(new Counter(name));
+    }
+
+    /**
+     * @param name Gauge name.
+     * @return New gauge or already registered gauge with the same name.
+     */
+    public Gauge gauge(String name) {
+        return register(new Gauge(name));
+    }
+
+    /**
+     * @param name Distribution name.
+     * @return New distribution or already registered distribution with the same name.
+     */
+    public Distribution distribution(String name) {
+        return register(new Distribution(name));
+    }
+
+    /**
+     * @return Registered metrics, ordered by registration.
+     */
+    public synchronized List<Metric> metrics() {
+        return new ArrayList<>(metrics);
+    }
+
+    /**
+     * @param metric Metric.
+     * @return Given metric or already registered metric of the same type and name.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <T extends Metric> T register(T metric) {
+        for (Metric m : metrics) {
+            if (m.name().equals(metric.name())) {
+                if (m.getClass() != metric.getClass())
+                    throw new IllegalArgumentException("Metric is already registered with other type: " + m);
+
+                return (T)m;
+            }
+        }
+
+        metrics.add(metric);
+
+        return metric;
+    }
+
+    /**
+     * Base class of metrics.
+     */
+    public abstract static class Metric {
+        /** Name. */
+        private final String name;
+
+        /**
+         * @param name Name.
+         */
+        Metric(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return Name.
+         */
+        public String name() {
+            return name;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return getClass().getSimpleName() + " [name=" + name + ']';
+        }
+    }
+
+    /**
+     * Monotonic counter, reported as rate per second.
+     */
+    public static final class Counter extends Metric {
+        /** Padded cells, leading and trailing ones are padding. */
+        private final AtomicLongArray cells = new AtomicLongArray((STRIPES + 2) * CELL_LEN);
+
+        /**
+         * @param name Name.
+         */
+        Counter(String name) {
+            super(name);
+        }
+
+        /**
+         * @param ctx Worker context.
+         * @param delta Value to add.
+         */
+        public void add(BenchmarkContext ctx, long delta) {
+            cells.getAndAdd(((ctx.threadIndex() & (STRIPES - 1)) + 1) * CELL_LEN, delta);
+        }
+
+        /**
+         * @param ctx Worker context.
+         */
+        public void increment(BenchmarkContext ctx) {
+            add(ctx, 1);
+        }
+
+        /**
+         * @return Sum of all added values.
+         */
+        public long sum() {
+            long res = 0;
+
+            for (int i = 0; i < STRIPES; i++)
+                res += cells.get((i + 1) * CELL_LEN);
+
+            return res;
+        }
+    }
+
+    /**
+     * Last set value, reported as is.
+     */
+    public static final class Gauge extends Metric {
+        /** Value. */
+        private volatile double val;
+
+        /**
+         * @param name Name.
+         */
+        Gauge(String name) {
+            super(name);
+        }
+
+        /**
+         * @param val Value.
+         */
+        public void set(double val) {
+            this.val = val;
+        }
+
+        /**
+         * @return Last set value.
+         */
+        public double value() {
+            return val;
+        }
+    }
+
+    /**
+     * Distribution of non-negative values, reported as mean, p99 and max of every interval. Values are
+     * kept with two significant decimal digits.
+     * <p>
+     * A distribution starts with a single histogram, {@link org.yardstickframework.probes.MetricsProbe}
+     * stripes it by thread index on start within the memory limit of probe histograms.
+     */
+    public static final class Distribution extends Metric {
+        /** Histograms, the first one is kept when stripes are added. */
+        private volatile LatencyHistogram[] stripes =
+            new LatencyHistogram[] {new LatencyHistogram(DISTRIBUTION_HIGHEST, DISTRIBUTION_DIGITS)};
+
+        /**
+         * @param name Name.
+         */
+        Distribution(String name) {
+            super(name);
+        }
+
+        /**
+         * @param ctx Worker context.
+         * @param val Value.
+         */
+        public void record(BenchmarkContext ctx, long val) {
+            LatencyHistogram[] stripes0 = stripes;
+
+            stripes0[ctx.threadIndex() % stripes0.length].recordConcurrent(val, 1);
+        }
+
+        /**
+         * Sets number of histograms values are recorded to. Values recorded before are kept.
+         *
+         * @param cnt Number of histograms.
+         */
+        public synchronized void stripes(int cnt) {
+            LatencyHistogram[] stripes0 = stripes;
+
+            if (cnt <= stripes0.length)
+                return;
+
+            LatencyHistogram[] res = Arrays.copyOf(stripes0, cnt);
+
+            for (int i = stripes0.length; i < cnt; i++)
+                res[i] = stripes0[0].newEmpty();
+
+            stripes = res;
+        }
+
+        /**
+         * @return Empty histogram with the layout of this distribution.
+         */
+        public LatencyHistogram newHistogram() {
+            return stripes[0].newEmpty();
+        }
+
+        /**
+         * Adds all recorded values to given histogram.
+         *
+         * @param hist Histogram created by {@link #newHistogram()}.
+         */
+        public void addTo(LatencyHistogram hist) {
+            for (LatencyHistogram h : stripes)
+                hist.add(h);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package org.yardstickframework;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Named timer of a sub-operation executed within a single test call, such as {@code get} and {@code put}
+ * of a composite operation.
+ * <p>
+ * Timers are registered by a driver in {@link BenchmarkDriver#setUp(BenchmarkConfiguration)} and kept
+ * in its fields, then sub-operations are recorded with {@link BenchmarkContext#record(BenchmarkTimer, long)}.
+ * Each timer has an index unique within its driver, so probes find its statistics by array lookup.
+ * Recorded sub-operations are passed to {@link BenchmarkTimerProbe}s configured for the driver.
+ * {@link org.yardstickframework.probes.SubOperationProbe} is added to the probes of a driver that registered
+ * any timer automatically.
+ */
+public final class BenchmarkTimer {
+    /** Timers of drivers. */
+    private static final Map<BenchmarkDriver, List<BenchmarkTimer>> timers =
+        Collections.synchronizedMap(new WeakHashMap<BenchmarkDriver, List<BenchmarkTimer>>());
+
+    /** Name. */
+    private final String name;
+
+    /** Index within driver timers. */
+    private final int idx;
+
+    /** Probes to pass recorded sub-operations to. */
+    private volatile BenchmarkTimerProbe[] probes = new BenchmarkTimerProbe[0];
+
+    /**
+     * @param name Name.
+     * @param idx Index within driver timers.
+     */
+    private BenchmarkTimer(String name, int idx) {
+        this.name = name;
+        this.idx = idx;
+    }
+
+    /**
+     * Registers timer of a driver, should be called from {@link BenchmarkDriver#setUp(BenchmarkConfiguration)}.
+     *
+     * @param drv Driver.
+     * @param name Sub-operation name.
+     * @return New timer or already registered timer with the same name.
+     */
+    public static BenchmarkTimer register(BenchmarkDriver drv, String name) {
+        synchronized (timers) {
+            List<BenchmarkTimer> list = timers.get(drv);
+
+            if (list == null)
+                timers.put(drv, list = new ArrayList<>());
+
+            for (BenchmarkTimer t : list) {
+                if (t.name.equals(name))
+                    return t;
+            }
+
+            BenchmarkTimer t = new BenchmarkTimer(name, list.size());
+
+            list.add(t);
+
+            return t;
+        }
+    }
+
+    /**
+     * @param drv Driver.
+     * @return Timers registered by the driver, ordered by index.
+     */
+    public static List<BenchmarkTimer> timers(BenchmarkDriver drv) {
+        synchronized (timers) {
+            List<BenchmarkTimer> list = timers.get(drv);
+
+            return list == null ? Collections.<BenchmarkTimer>emptyList() : new ArrayList<>(list);
+        }
+    }
+
+    /**
+     * @return Sub-operation name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return Index within driver timers.
+     */
+    public int index() {
+        return idx;
+    }
+
+    /**
+     * Sets probes to pass recorded sub-operations to. Called by the framework when probes are started.
+     *
+     * @param probes Probes.
+     */
+    public void probes(Collection<BenchmarkTimerProbe> probes) {
+        this.probes = probes.toArray(new BenchmarkTimerProbe[probes.size()]);
+    }
+
+    /**
+     * @param threadIdx Thread index.
+     * @param startNanos Sub-operation start time, in {@link System#nanoTime()} units.
+     * @param endNanos Sub-operation completion time, in {@link System#nanoTime()} units.
+     */
+    void record(int threadIdx, long startNanos, long endNanos) {
+        BenchmarkTimerProbe[] probes0 = probes;
+
+        for (int i = 0; i < probes0.length; i++)
+            probes0[i].onTimed(threadIdx, this, startNanos, endNanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return getClass().getSimpleName() + " [name=" + name + ", idx=" + idx + ']';
+    }
+}
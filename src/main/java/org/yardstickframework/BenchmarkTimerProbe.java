@@ -0,0 +1,29 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+package org.yardstickframework;
+
+/**
+ * Probe that is given sub-operations recorded by {@link BenchmarkTimer}s of its driver.
+ */
+public interface BenchmarkTimerProbe extends BenchmarkProbe {
+    /**
+     * Sub-operation callback. It is invoked by the worker thread with given index.
+     *
+     * @param threadIdx Thread index.
+     * @param timer Timer, its {@link BenchmarkTimer#index()} is unique within the driver.
+     * @param startNanos Sub-operation start time, in {@link System#nanoTime()} units.
+     * @param endNanos Sub-operation completion time, in {@link System#nanoTime()} units.
+     */
+    public void onTimed(int threadIdx, BenchmarkTimer timer, long startNanos, long endNanos);
+}
@@ -0,0 +1,52 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework;
+
+/**
+ * Probe that is given the timing of each test sample.
+ * <p>
+ * Unlike {@link BenchmarkExecutionAwareProbe}, timing probes do not read the clock themselves. The probe
+ * set reads it once before and once after the sample and passes the same timestamps to all timing probes
+ * with a single callback, so enabling several latency probes does not add clock reads.
+ * <p>
+ * In constant-rate mode ({@code --rate}) every sample is scheduled at a fixed instant. If the sample
+ * starts late because previous samples were slow, the delay is a part of the response time that a client
+ * would observe, so the start time passed to probes is the scheduled instant rather than the actual start
+ * (coordinated omission correction).
+ * <p>
+ * With {@code --latencySampling} only a subset of synchronous samples is timed, the rest are reported
+ * without timestamps so that throughput still accounts for every operation.
+ */
+public interface BenchmarkTimingProbe extends BenchmarkProbe {
+    /**
+     * Test sample execution callback. It is invoked by the thread with given index.
+     *
+     * @param threadIdx Thread index.
+     * @param startNanos Sample start time, in {@link System#nanoTime()} units.
+     * @param endNanos Sample completion time, in {@link System#nanoTime()} units.
+     * @param ops Number of operations executed by the sample, greater than {@code 1} for batches
+     *      of {@link BenchmarkBatchDriver} and may be {@code 0}.
+     */
+    public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops);
+
+    /**
+     * Callback for test sample executed without timing in latency sampling mode. It is invoked by the
+     * thread with given index.
+     *
+     * @param threadIdx Thread index.
+     * @param ops Number of operations executed by the sample, may be {@code 0}.
+     */
+    public void onExecuted(int threadIdx, int ops);
+}
@@ -22,12 +22,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Benchmark utility methods.
@@ -42,6 +47,18 @@ public class BenchmarkUtils {
     /** Weight delimiter. */
     public static final String WEIGHT_DELIMITER = ":";
 
+    /** Thread group size delimiter. */
+    public static final String THREADS_DELIMITER = "@";
+
+    /** Name prefix of benchmark worker threads, followed by the thread index. */
+    public static final String WORKER_THREAD_PREFIX = "benchmark-worker-";
+
+    /** Number of probe state stripes per available processor in virtual threads mode. */
+    public static final int VIRTUAL_THREADS_STRIPES_PER_CPU = 4;
+
+    /** Kernel thread IDs of running platform worker threads mapped to thread indexes. */
+    private static final ConcurrentMap<String, Integer> workerThreads = new ConcurrentHashMap<>();
+
     /** Indicates whether current OS is Windows. */
     private static boolean isWin;
 
@@ -168,6 +185,69 @@ public class BenchmarkUtils {
             t.printStackTrace(cfg.error());
     }
 
+    /**
+     * Gets number of slots that execution aware probes should keep their accumulated state in.
+     * Platform workers get a slot each. Virtual workers can outnumber carrier threads by orders
+     * of magnitude, so their state is striped over a number of slots proportional to available processors.
+     *
+     * @param cfg Benchmark configuration.
+     * @return Number of probe state stripes.
+     */
+    public static int probeStripes(BenchmarkConfiguration cfg) {
+        if (!cfg.virtualThreads())
+            return cfg.threads();
+
+        return Math.max(1, Math.min(cfg.threads(),
+            Runtime.getRuntime().availableProcessors() * VIRTUAL_THREADS_STRIPES_PER_CPU));
+    }
+
+    /**
+     * Registers the current thread as a platform worker thread, so that probes can find kernel statistics
+     * of workers. Thread names can not be used for that, since Java 8 does not pass them to the kernel.
+     * Does nothing if kernel thread IDs are not available.
+     *
+     * @param threadIdx Thread index.
+     */
+    public static void registerWorkerThread(int threadIdx) {
+        String tid = currentThreadTid();
+
+        if (tid != null)
+            workerThreads.put(tid, threadIdx);
+    }
+
+    /**
+     * Unregisters the current thread registered by {@link #registerWorkerThread(int)}.
+     */
+    public static void unregisterWorkerThread() {
+        String tid = currentThreadTid();
+
+        if (tid != null)
+            workerThreads.remove(tid);
+    }
+
+    /**
+     * @return Kernel thread IDs of running platform worker threads mapped to thread indexes.
+     */
+    public static Map<String, Integer> workerThreads() {
+        return Collections.unmodifiableMap(workerThreads);
+    }
+
+    /**
+     * @return Kernel thread ID of the current thread or {@code null} if it is not available, for example
+     *      not on Linux.
+     */
+    public static String currentThreadTid() {
+        try {
+            // Link target is "<pid>/task/<tid>".
+            String link = Files.readSymbolicLink(Paths.get("/proc/thread-self")).toString();
+
+            return link.substring(link.lastIndexOf('/') + 1);
+        }
+        catch (IOException | UnsupportedOperationException | SecurityException ignored) {
+            return null;
+        }
+    }
+
     /**
      * Fixes folder name if needed.
      *
@@ -178,6 +258,17 @@ public class BenchmarkUtils {
         return fName.length() > 200 ? fName.substring(0, 200) : fName;
     }
 
+    /**
+     * Strips run weight or thread group size from driver name, for example {@code EchoBenchmark:3}
+     * or {@code EchoBenchmark@8}.
+     *
+     * @param name Driver name as specified in configuration.
+     * @return Driver name.
+     */
+    public static String driverName(String name) {
+        return name.split(WEIGHT_DELIMITER + '|' + THREADS_DELIMITER)[0].trim();
+    }
+
     /**
      * Returns the description corresponding to the given benchmark driver.
      *
@@ -193,7 +284,7 @@ public class BenchmarkUtils {
         String simpleName = drv.getClass().getSimpleName();
 
         for (int i = 0; i < cfg.driverNames().size(); i++) {
-            if (simpleName.equals(cfg.driverNames().get(i).split(WEIGHT_DELIMITER)[0].trim())) {
+            if (simpleName.equals(driverName(cfg.driverNames().get(i)))) {
                 if (i <= cfg.descriptions().size() - 1)
                     return cfg.descriptions().get(i);
 
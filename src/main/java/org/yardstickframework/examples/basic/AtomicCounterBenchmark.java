@@ -16,15 +16,17 @@ package org.yardstickframework.examples.basic;
 
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.yardstickframework.BenchmarkBatchDriver;
 import org.yardstickframework.BenchmarkDriverAdapter;
 
 /**
  * Benchmark to measure how fast atomic integer can be incremented when
  * called form multiple threads concurrently.
  * <p>
- * This benchmark is local and does not have remote server counterpart.
+ * This benchmark is local and does not have remote server counterpart. Increment takes a few
+ * nanoseconds, so it is worth running it with {@code --testBatch} to amortize the framework overhead.
  */
-public class AtomicCounterBenchmark extends BenchmarkDriverAdapter {
+public class AtomicCounterBenchmark extends BenchmarkDriverAdapter implements BenchmarkBatchDriver {
     /** Counter to benchmark. */
     private final AtomicInteger cnt = new AtomicInteger();
 
@@ -34,4 +36,12 @@ public class AtomicCounterBenchmark extends BenchmarkDriverAdapter {
 
         return true;
     }
+
+    /** {@inheritDoc} */
+    @Override public int testBatch(Map<Object, Object> ctx, int n) throws Exception {
+        for (int i = 0; i < n; i++)
+            cnt.incrementAndGet();
+
+        return n;
+    }
 }
@@ -17,12 +17,10 @@ package org.yardstickframework.examples.echo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.yardstickframework.BenchmarkConfiguration;
-import org.yardstickframework.BenchmarkDriverAdapter;
+import org.yardstickframework.BenchmarkContext;
+import org.yardstickframework.BenchmarkContextDriverAdapter;
 import org.yardstickframework.BenchmarkUtils;
 
 import static org.yardstickframework.BenchmarkUtils.println;
@@ -30,13 +28,13 @@ import static org.yardstickframework.BenchmarkUtils.println;
 /**
  * Echo server benchmark. This benchmark has client and server counterparts.
  */
-public class EchoBenchmark extends BenchmarkDriverAdapter {
+public class EchoBenchmark extends BenchmarkContextDriverAdapter {
+    /** Socket of the worker thread. */
+    private static final BenchmarkContext.Slot<Socket> SOCK = new BenchmarkContext.Slot<>();
+
     /** Counter. */
     private final AtomicInteger cntr = new AtomicInteger();
 
-    /** Thread to socket map. */
-    private final ConcurrentMap<Thread, Socket> sockMap = new ConcurrentHashMap<>();
-
     /** Arguments. */
     private final EchoBenchmarkArguments args = new EchoBenchmarkArguments();
 
@@ -49,18 +47,25 @@ public class EchoBenchmark extends BenchmarkDriverAdapter {
         BenchmarkUtils.jcommander(cfg.commandLineArguments(), args, "<echo-driver>");
 
         // Check if EchoServer is up.
-        createSocket(args);
+        createSocket(args).close();
+    }
+
+    /** {@inheritDoc} */
+    @Override public void setUpThread(BenchmarkContext ctx) throws Exception {
+        ctx.slot(SOCK, createSocket(args));
     }
 
     /** {@inheritDoc} */
-    @Override public void tearDown() throws Exception {
-        for (Socket sock : sockMap.values())
+    @Override public void tearDownThread(BenchmarkContext ctx) throws Exception {
+        Socket sock = ctx.slot(SOCK);
+
+        if (sock != null)
             sock.close();
     }
 
     /** {@inheritDoc} */
-    @Override public boolean test(Map<Object, Object> ctx) throws Exception {
-        Socket sock = socket(args);
+    @Override public boolean test(BenchmarkContext ctx) throws Exception {
+        Socket sock = ctx.slot(SOCK);
 
         String req = "ping-" + cntr.incrementAndGet();
 
@@ -104,28 +109,6 @@ public class EchoBenchmark extends BenchmarkDriverAdapter {
         return BenchmarkUtils.usage(args);
     }
 
-    /**
-     * Initialize socket per thread.
-     *
-     * @param args Echo server arguments.
-     * @return Socket for this thread.
-     * @throws Exception If failed.
-     */
-    private Socket socket(EchoBenchmarkArguments args) throws Exception {
-        Socket sock = sockMap.get(Thread.currentThread());
-
-        if (sock == null) {
-            sock = createSocket(args);
-
-            Socket old = sockMap.putIfAbsent(Thread.currentThread(), sock);
-
-            if (old != null)
-                sock = old;
-        }
-
-        return sock;
-    }
-
     /**
      * Creates socket.
      *
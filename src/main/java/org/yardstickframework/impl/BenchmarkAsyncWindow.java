@@ -0,0 +1,140 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.impl;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Bounded window of asynchronous operations started by one benchmark worker.
+ * <p>
+ * Operations may complete on any thread. Completions are queued and handed back to the owning
+ * worker, so probes are still notified by the thread they are indexed by.
+ */
+class BenchmarkAsyncWindow {
+    /** Maximum single park while waiting for completion, so cancellation is noticed. */
+    private static final long MAX_PARK_NANOS = 100_000_000;
+
+    /** Maximum number of operations in flight. */
+    private final int size;
+
+    /** Worker thread. */
+    private final Thread owner;
+
+    /** Completed operations not yet handed back to the worker. */
+    private final ConcurrentLinkedQueue<Completion> completed = new ConcurrentLinkedQueue<>();
+
+    /** Number of operations in flight, accessed by the worker only. */
+    private int inFlight;
+
+    /**
+     * @param size Maximum number of operations in flight.
+     * @param owner Worker thread.
+     */
+    BenchmarkAsyncWindow(int size, Thread owner) {
+        this.size = Math.max(1, size);
+        this.owner = owner;
+    }
+
+    /**
+     * @return {@code True} if no more operations can be started until some complete.
+     */
+    boolean full() {
+        return inFlight >= size;
+    }
+
+    /**
+     * @return {@code True} if there are no operations in flight.
+     */
+    boolean isEmpty() {
+        return inFlight == 0;
+    }
+
+    /**
+     * Registers started operation.
+     *
+     * @param stage Operation stage.
+     * @param drvIdx Index of the driver that started the operation.
+     * @param startNanos Operation start time.
+     */
+    void add(CompletionStage<Boolean> stage, final int drvIdx, final long startNanos) {
+        inFlight++;
+
+        stage.whenComplete(new BiConsumer<Boolean, Throwable>() {
+            @Override public void accept(Boolean res, Throwable err) {
+                completed.add(new Completion(drvIdx, startNanos, System.nanoTime(), res, err));
+
+                LockSupport.unpark(owner);
+            }
+        });
+    }
+
+    /**
+     * @return Next completed operation or {@code null} if none.
+     */
+    Completion poll() {
+        Completion c = completed.poll();
+
+        if (c != null)
+            inFlight--;
+
+        return c;
+    }
+
+    /**
+     * Waits until some operation completes or timeout elapses.
+     */
+    void await() {
+        if (completed.isEmpty())
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+    }
+
+    /**
+     * Completed operation.
+     */
+    static class Completion {
+        /** Driver index. */
+        final int drvIdx;
+
+        /** Start time. */
+        final long startNanos;
+
+        /** Completion time. */
+        final long endNanos;
+
+        /** Result, {@code null} if failed. */
+        final Boolean res;
+
+        /** Error, {@code null} if succeeded. */
+        final Throwable err;
+
+        /**
+         * @param drvIdx Driver index.
+         * @param startNanos Start time.
+         * @param endNanos Completion time.
+         * @param res Result.
+         * @param err Error.
+         */
+        Completion(int drvIdx, long startNanos, long endNanos, Boolean res, Throwable err) {
+            this.drvIdx = drvIdx;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.res = res;
+            this.err = err;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted driver selector based on Vose's alias method. Selection takes constant time regardless of
+ * the number of drivers. The selector is immutable and can be shared by all workers, each worker passes
+ * its own random generator.
+ */
+class BenchmarkDriverSelector {
+    /** Probability to keep the column index instead of its alias. */
+    private final double[] prob;
+
+    /** Alias of each column. */
+    private final int[] alias;
+
+    /**
+     * @param weights Driver weights, all positive.
+     */
+    BenchmarkDriverSelector(int[] weights) {
+        int n = weights.length;
+
+        prob = new double[n];
+        alias = new int[n];
+
+        long sum = 0;
+
+        for (int w : weights)
+            sum += w;
+
+        double[] scaled = new double[n];
+
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double)weights[i] * n / sum;
+
+            if (scaled[i] < 1)
+                small.push(i);
+            else
+                large.push(i);
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int s = small.pop();
+            int l = large.pop();
+
+            prob[s] = scaled[s];
+            alias[s] = l;
+
+            scaled[l] = scaled[l] + scaled[s] - 1;
+
+            if (scaled[l] < 1)
+                small.push(l);
+            else
+                large.push(l);
+        }
+
+        // Remaining columns are full up to rounding errors.
+        while (!large.isEmpty())
+            prob[large.pop()] = 1;
+
+        while (!small.isEmpty())
+            prob[small.pop()] = 1;
+    }
+
+    /**
+     * @param rand Random generator of the calling worker.
+     * @return Driver index.
+     */
+    int next(SplittableRandom rand) {
+        int n = prob.length;
+
+        if (n == 1)
+            return 0;
+
+        int i = rand.nextInt(n);
+
+        return rand.nextDouble() < prob[i] ? i : alias[i];
+    }
+}
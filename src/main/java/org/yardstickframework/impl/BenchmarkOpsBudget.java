@@ -0,0 +1,78 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.yardstickframework.BenchmarkUtils;
+
+/**
+ * Operations budget shared by benchmark workers.
+ * <p>
+ * Workers claim operations in chunks and spend them locally, so the shared counter is updated once
+ * per chunk rather than once per iteration. Chunks shrink with the budget to keep the tail balanced
+ * between threads, the last chunk is trimmed so exactly the configured number of operations is granted.
+ * Progress is logged when the aggregate of claimed operations crosses the logging frequency.
+ */
+class BenchmarkOpsBudget {
+    /** Maximum chunk size. */
+    static final int MAX_CHUNK = 1024;
+
+    /** Number of chunks per thread the limited budget is split to at least. */
+    private static final int CHUNKS_PER_THREAD = 64;
+
+    /** Total number of operations, {@code 0} if unlimited. */
+    private final long total;
+
+    /** Chunk size. */
+    private final int chunk;
+
+    /** Logging frequency. */
+    private final int logFreq;
+
+    /** Number of operations claimed by all threads, may exceed the total. */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * @param total Total number of operations, {@code 0} if unlimited.
+     * @param threads Number of threads.
+     * @param logFreq Logging frequency.
+     */
+    BenchmarkOpsBudget(long total, int threads, int logFreq) {
+        this.total = total;
+        this.logFreq = Math.max(1, logFreq);
+
+        chunk = total > 0 ? (int)Math.max(1, Math.min(MAX_CHUNK, total / ((long)threads * CHUNKS_PER_THREAD))) :
+            MAX_CHUNK;
+    }
+
+    /**
+     * Claims next chunk of operations.
+     *
+     * @param min Minimum number of operations needed.
+     * @return Number of granted operations, less than {@code min} only if the budget is exhausted.
+     */
+    long claim(int min) {
+        int size = Math.max(chunk, min);
+
+        long prev = claimed.getAndAdd(size);
+
+        long granted = total > 0 ? Math.max(0, Math.min(size, total - prev)) : size;
+
+        if (granted > 0 && (prev + granted) / logFreq != prev / logFreq)
+            BenchmarkUtils.println("Starting iteration: " + (prev + granted) / logFreq * logFreq);
+
+        return granted;
+    }
+}
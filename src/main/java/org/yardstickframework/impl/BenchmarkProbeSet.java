@@ -23,10 +23,16 @@ import java.util.concurrent.CountDownLatch;
 import org.yardstickframework.BenchmarkConfiguration;
 import org.yardstickframework.BenchmarkDriver;
 import org.yardstickframework.BenchmarkExecutionAwareProbe;
+import org.yardstickframework.BenchmarkMetrics;
 import org.yardstickframework.BenchmarkProbe;
 import org.yardstickframework.BenchmarkProbePoint;
 import org.yardstickframework.BenchmarkProbePointWriter;
+import org.yardstickframework.BenchmarkTimer;
+import org.yardstickframework.BenchmarkTimerProbe;
+import org.yardstickframework.BenchmarkTimingProbe;
 import org.yardstickframework.BenchmarkTotalsOnlyProbe;
+import org.yardstickframework.probes.MetricsProbe;
+import org.yardstickframework.probes.SubOperationProbe;
 import org.yardstickframework.writers.BenchmarkProbePointCsvWriter;
 
 import static org.yardstickframework.BenchmarkUtils.errorHelp;
@@ -48,6 +54,9 @@ public class BenchmarkProbeSet {
     /** Execution aware probes. */
     private final List<BenchmarkExecutionAwareProbe> execProbes;
 
+    /** Timing probes. */
+    private final List<BenchmarkTimingProbe> timingProbes;
+
     /** Writer thread. */
     private Thread fileWriterThread;
 
@@ -81,10 +90,11 @@ public class BenchmarkProbeSet {
         this.cfg = cfg;
         this.driver = driver;
         this.ldr = ldr;
-        this.probes = probes;
+        this.probes = new ArrayList<>(probes);
 
         writers = new HashMap<>(probes.size());
         execProbes = new ArrayList<>(probes.size());
+        timingProbes = new ArrayList<>(probes.size());
     }
 
     /**
@@ -100,6 +110,12 @@ public class BenchmarkProbeSet {
             writerClsName = BenchmarkProbePointCsvWriter.class.getName();
         }
 
+        if (!BenchmarkMetrics.of(driver).metrics().isEmpty() && !hasProbe(MetricsProbe.class))
+            probes.add(new MetricsProbe());
+
+        if (!BenchmarkTimer.timers(driver).isEmpty() && !hasProbe(SubOperationProbe.class))
+            probes.add(new SubOperationProbe());
+
         boolean warn = true;
 
         long writersStartTime = System.currentTimeMillis();
@@ -119,6 +135,9 @@ public class BenchmarkProbeSet {
 
             writers.put(probe, writer);
 
+            if (probe instanceof BenchmarkTimingProbe)
+                timingProbes.add((BenchmarkTimingProbe)probe);
+
             if (probe instanceof BenchmarkExecutionAwareProbe)
                 execProbes.add((BenchmarkExecutionAwareProbe)probe);
 
@@ -135,6 +154,16 @@ public class BenchmarkProbeSet {
             throw e;
         }
 
+        List<BenchmarkTimerProbe> timerProbes = new ArrayList<>();
+
+        for (BenchmarkProbe probe : probes) {
+            if (probe instanceof BenchmarkTimerProbe)
+                timerProbes.add((BenchmarkTimerProbe)probe);
+        }
+
+        for (BenchmarkTimer timer : BenchmarkTimer.timers(driver))
+            timer.probes(timerProbes);
+
         if (!probes.isEmpty()) {
             fileWriterThread = new Thread("probe-dump-thread") {
                 @Override
@@ -205,26 +234,108 @@ public class BenchmarkProbeSet {
      * Before benchmark test iteration execute callback.
      *
      * @param threadIdx Executor thread index.
+     * @return Iteration start time to pass to {@link #onAfterExecute(int, long, int)}.
+     */
+    @SuppressWarnings("ForLoopReplaceableByForEach")
+    public long onBeforeExecute(int threadIdx) {
+        // Avoid iterator creation.
+        for (int i = 0; i < execProbes.size(); i++)
+            execProbes.get(i).beforeExecute(threadIdx);
+
+        return timingProbes.isEmpty() ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Before benchmark test iteration execute callback for iterations scheduled at a fixed instant.
+     *
+     * @param threadIdx Executor thread index.
+     * @param intendedStartNanos Time the iteration was scheduled to start at, in {@link System#nanoTime()} units.
+     * @return Iteration start time to pass to {@link #onAfterExecute(int, long, int)}.
+     */
+    @SuppressWarnings("ForLoopReplaceableByForEach")
+    public long onBeforeExecute(int threadIdx, long intendedStartNanos) {
+        // Avoid iterator creation.
+        for (int i = 0; i < execProbes.size(); i++)
+            execProbes.get(i).beforeExecute(threadIdx);
+
+        return intendedStartNanos;
+    }
+
+    /**
+     * After benchmark test iteration execute callback. Reads the clock once for all timing probes.
+     * Execution aware probes count a batch of operations as one iteration.
+     *
+     * @param threadIdx Executor thread index.
+     * @param startNanos Iteration start time returned by {@code onBeforeExecute}.
+     * @param ops Number of executed operations.
      */
     @SuppressWarnings("ForLoopReplaceableByForEach")
-    public void onBeforeExecute(int threadIdx) {
+    public void onAfterExecute(int threadIdx, long startNanos, int ops) {
+        if (!timingProbes.isEmpty()) {
+            long endNanos = System.nanoTime();
+
+            // Avoid iterator creation.
+            for (int i = 0; i < timingProbes.size(); i++)
+                timingProbes.get(i).onExecuted(threadIdx, startNanos, endNanos, ops);
+        }
+
+        for (int i = 0; i < execProbes.size(); i++)
+            execProbes.get(i).afterExecute(threadIdx);
+    }
+
+    /**
+     * Before benchmark test iteration execute callback for iterations that are not timed in latency
+     * sampling mode. Does not read the clock.
+     *
+     * @param threadIdx Executor thread index.
+     */
+    @SuppressWarnings("ForLoopReplaceableByForEach")
+    public void onBeforeUntimedExecute(int threadIdx) {
         // Avoid iterator creation.
         for (int i = 0; i < execProbes.size(); i++)
             execProbes.get(i).beforeExecute(threadIdx);
     }
 
     /**
-     * After benchmark test iteration execute callback.
+     * After benchmark test iteration execute callback for iterations that are not timed in latency
+     * sampling mode. Timing probes only count executed operations.
      *
      * @param threadIdx Executor thread index.
+     * @param ops Number of executed operations.
      */
     @SuppressWarnings("ForLoopReplaceableByForEach")
-    public void onAfterExecute(int threadIdx) {
+    public void onAfterUntimedExecute(int threadIdx, int ops) {
         // Avoid iterator creation.
+        for (int i = 0; i < timingProbes.size(); i++)
+            timingProbes.get(i).onExecuted(threadIdx, ops);
+
         for (int i = 0; i < execProbes.size(); i++)
             execProbes.get(i).afterExecute(threadIdx);
     }
 
+    /**
+     * Callback for benchmark test iteration timed by the runner, such as asynchronous operation.
+     * Execution aware probes are notified with back-to-back before and after callbacks, so they
+     * count the iteration but can not measure its latency.
+     *
+     * @param threadIdx Executor thread index.
+     * @param startNanos Iteration start time, in {@link System#nanoTime()} units.
+     * @param endNanos Iteration completion time, in {@link System#nanoTime()} units.
+     */
+    @SuppressWarnings("ForLoopReplaceableByForEach")
+    public void onExecuted(int threadIdx, long startNanos, long endNanos) {
+        // Avoid iterator creation.
+        for (int i = 0; i < timingProbes.size(); i++)
+            timingProbes.get(i).onExecuted(threadIdx, startNanos, endNanos, 1);
+
+        for (int i = 0; i < execProbes.size(); i++) {
+            BenchmarkExecutionAwareProbe probe = execProbes.get(i);
+
+            probe.beforeExecute(threadIdx);
+            probe.afterExecute(threadIdx);
+        }
+    }
+
     /**
      * Notifies probes to build a point. This method is invoked periodically with given interval.
      *
@@ -268,6 +379,19 @@ public class BenchmarkProbeSet {
         stopProbes();
     }
 
+    /**
+     * @param cls Probe class.
+     * @return Whether probe of given class is configured.
+     */
+    private boolean hasProbe(Class<? extends BenchmarkProbe> cls) {
+        for (BenchmarkProbe probe : probes) {
+            if (cls.isInstance(probe))
+                return true;
+        }
+
+        return false;
+    }
+
     /**
      *
      */
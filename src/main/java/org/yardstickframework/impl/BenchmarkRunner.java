@@ -14,19 +14,26 @@
 
 package org.yardstickframework.impl;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.yardstickframework.BenchmarkAsyncDriver;
+import org.yardstickframework.BenchmarkBatchDriver;
 import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkContext;
+import org.yardstickframework.BenchmarkContextDriver;
 import org.yardstickframework.BenchmarkDriver;
 import org.yardstickframework.BenchmarkUtils;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 import static org.yardstickframework.BenchmarkUtils.errorHelp;
 
 /**
@@ -39,6 +46,12 @@ public class BenchmarkRunner {
     /** */
     public static final long DEFAULT_INTERVAL_IN_MSECS = 1_000;
 
+    /** Remaining time to scheduled iteration start below which worker spins instead of parking. */
+    private static final long SCHEDULE_SPIN_NANOS = 50_000;
+
+    /** Maximum single park while waiting for scheduled iteration start, so cancellation is noticed. */
+    private static final long SCHEDULE_MAX_PARK_NANOS = 100_000_000;
+
     /** Benchmark arguments. */
     private final BenchmarkConfiguration cfg;
 
@@ -60,6 +73,9 @@ public class BenchmarkRunner {
     /** List of weights. */
     private final int[] weights;
 
+    /** Number of threads per driver, {@code null} if every thread runs all drivers. */
+    private final int[] groups;
+
     /** Execution error. */
     private volatile Throwable err;
 
@@ -67,6 +83,9 @@ public class BenchmarkRunner {
     @SuppressWarnings("FieldAccessedSynchronizedAndUnsynchronized")
     private Thread buildingThread;
 
+    /** Thread switching benchmark phases. */
+    private volatile Timekeeper timekeeper;
+
     /**
      * @param cfg Benchmark arguments.
      * @param drivers Drivers.
@@ -78,11 +97,30 @@ public class BenchmarkRunner {
         BenchmarkDriver[] drivers,
         BenchmarkProbeSet[] probeSets,
         int[] weights
+    ) {
+        this(cfg, drivers, probeSets, weights, null);
+    }
+
+    /**
+     * @param cfg Benchmark arguments.
+     * @param drivers Drivers.
+     * @param probeSets Probe sets.
+     * @param weights Driver run weights, ignored if thread groups are set.
+     * @param groups Number of threads dedicated to each driver, {@code null} if every thread runs
+     *      all drivers mixed by weights. Sum must be equal to {@link BenchmarkConfiguration#threads()}.
+     */
+    public BenchmarkRunner(
+        BenchmarkConfiguration cfg,
+        BenchmarkDriver[] drivers,
+        BenchmarkProbeSet[] probeSets,
+        int[] weights,
+        int[] groups
     ) {
         this.cfg = cfg;
         this.drivers = drivers;
         this.probeSets = probeSets;
         this.weights = weights;
+        this.groups = groups;
     }
 
     /**
@@ -91,6 +129,12 @@ public class BenchmarkRunner {
     public synchronized void runBenchmark() throws Exception {
         final int threadNum = cfg.threads();
 
+        // Fail fast before any probe is started.
+        if (cfg.virtualThreads())
+            virtualThreadBuilder();
+
+        final int[] threadDrivers = threadDrivers(threadNum);
+
         threads = new ArrayList<>(threadNum);
 
         final AtomicInteger finished = new AtomicInteger(0);
@@ -102,11 +146,14 @@ public class BenchmarkRunner {
 
         BenchmarkUtils.println("Starting warmup.");
 
-        final long testStart = System.currentTimeMillis();
+        final Timekeeper timekeeper = new Timekeeper(cfg.warmup() * 1_000L,
+            cfg.operationsCount() > 0 ? 0 : cfg.duration() * 1_000L);
+
+        this.timekeeper = timekeeper;
 
-        final long totalDuration = cfg.duration() + cfg.warmup();
+        timekeeper.start();
 
-        final int sumWeight = sumWeights();
+        final BenchmarkDriverSelector selector = new BenchmarkDriverSelector(weights);
 
         final Phaser phaser = new Phaser(threadNum) {
             @Override protected boolean onAdvance(int phase, int registeredParties) {
@@ -122,21 +169,51 @@ public class BenchmarkRunner {
             }
         };
 
-        final AtomicLong opsCnt = new AtomicLong();
+        final BenchmarkOpsBudget budget = new BenchmarkOpsBudget(cfg.operationsCount(), threadNum,
+            cfg.logIterationsFrequency());
+
+        final boolean async = hasAsyncDrivers();
+
+        final int batchSize = cfg.testBatch();
+
+        // Interval between iterations of one thread in constant-rate mode.
+        final double schedulePeriod = cfg.rate() > 0 ? (double)threadNum * 1_000_000_000L / cfg.rate() : 0;
+
+        // One of every so many synchronous iterations is timed.
+        final int sampling = Math.max(1, cfg.latencySampling());
 
         for (int i = 0; i < threadNum; i++) {
             final int threadIdx = i;
 
-            final int logFreq = cfg.logIterationsFrequency();
+            // Driver of the thread group or -1 if the thread runs all drivers.
+            final int grpIdx = threadDrivers == null ? -1 : threadDrivers[i];
 
-            threads.add(new Thread(new Runnable() {
+            threads.add(newWorker(new Runnable() {
                 @Override public void run() {
                     BenchmarkDriver drv = null;
 
+                    BenchmarkContext ctx = cfg.seed() != 0 ?
+                        new BenchmarkContext(threadIdx, cfg.memberId(), cfg.seed()) :
+                        new BenchmarkContext(threadIdx, cfg.memberId());
+
+                    // Virtual threads do not have kernel threads of their own.
+                    if (!cfg.virtualThreads())
+                        BenchmarkUtils.registerWorkerThread(threadIdx);
+
                     try {
-                        Random rand = new Random();
+                        // Independent of drivers use of the context generator, but reproducible with it.
+                        SplittableRandom rand = ctx.random().split();
+
+                        for (int i = 0; i < drivers.length; i++) {
+                            if (drivers[i] instanceof BenchmarkContextDriver && (grpIdx < 0 || grpIdx == i)) {
+                                drv = drivers[i];
+
+                                ((BenchmarkContextDriver)drv).setUpThread(ctx);
+                            }
+                        }
 
-                        Map<Object, Object> ctx = new HashMap<>();
+                        BenchmarkAsyncWindow window = async ?
+                            new BenchmarkAsyncWindow(cfg.asyncInFlight(), Thread.currentThread()) : null;
 
                         // To avoid CAS on each benchmark iteration.
                         boolean reset;
@@ -149,35 +226,103 @@ public class BenchmarkRunner {
                             phaser.arriveAndAwaitAdvance();
                         }
 
+                        // Threads are shifted against each other to spread iterations evenly over time.
+                        long scheduleStart = System.nanoTime() + (long)(schedulePeriod * threadIdx / threadNum);
+
+                        long scheduledIters = 0;
+
+                        // Operations claimed from the budget and not executed yet.
+                        long permits = 0;
+
+                        // Iterations left until the next timed one.
+                        long untilSample = 1;
+
                         while (!cancelled && !Thread.currentThread().isInterrupted()) {
-                            if (!reset) {
-                                long ops = opsCnt.incrementAndGet();
+                            int idx = grpIdx < 0 ? selector.next(rand) : grpIdx;
+
+                            drv = drivers[idx];
 
-                                if (ops % logFreq == 0)
-                                    BenchmarkUtils.println("Starting iteration: " + ops);
+                            BenchmarkProbeSet probeSet = probeSets[idx];
 
-                                if (cfg.operationsCount() > 0) {
-                                    if (ops > cfg.operationsCount()) {
-                                        for (BenchmarkProbeSet set : probeSets)
-                                            set.onFinished();
+                            // Asynchronous execution takes precedence if driver supports both.
+                            boolean batched = batchSize > 1 && drv instanceof BenchmarkBatchDriver &&
+                                !(window != null && drv instanceof BenchmarkAsyncDriver);
 
-                                        break;
-                                    }
+                            int batch = batched ? batchSize : 1;
+
+                            if (!reset) {
+                                if (permits < batch)
+                                    permits += budget.claim(batch - (int)permits);
+
+                                // Operations count is exhausted.
+                                if (permits == 0) {
+                                    for (BenchmarkProbeSet set : probeSets)
+                                        set.onFinished();
+
+                                    break;
                                 }
+
+                                // Stop exactly at configured operations count.
+                                if (batch > permits)
+                                    batch = (int)permits;
+
+                                permits -= batch;
                             }
 
-                            int idx = driverIndex(rand, sumWeight);
+                            long intendedStart = 0;
 
-                            drv = drivers[idx];
+                            if (schedulePeriod > 0) {
+                                intendedStart = scheduleStart + (long)(schedulePeriod * scheduledIters);
 
-                            BenchmarkProbeSet probeSet = probeSets[idx];
+                                scheduledIters += batch;
+
+                                awaitScheduledStart(intendedStart);
+                            }
+
+                            boolean res = window == null || completeAsync(window, threadIdx, false);
+
+                            if (res) {
+                                if (window != null && drv instanceof BenchmarkAsyncDriver) {
+                                    // Latency is measured from intended start to account for coordinated omission.
+                                    res = startAsync(window, (BenchmarkAsyncDriver)drv, idx, ctx, threadIdx,
+                                        schedulePeriod > 0, intendedStart);
+                                }
+                                else {
+                                    boolean timed = --untilSample == 0;
+
+                                    long start = 0;
+
+                                    if (timed) {
+                                        untilSample = sampleDistance(sampling, rand);
+
+                                        start = schedulePeriod > 0 ?
+                                            probeSet.onBeforeExecute(threadIdx, intendedStart) :
+                                            probeSet.onBeforeExecute(threadIdx);
+                                    }
+                                    else
+                                        probeSet.onBeforeUntimedExecute(threadIdx);
+
+                                    int done;
 
-                            probeSet.onBeforeExecute(threadIdx);
+                                    // Execute benchmark code.
+                                    if (batched) {
+                                        done = ((BenchmarkBatchDriver)drv).testBatch(ctx, batch);
 
-                            // Execute benchmark code.
-                            boolean res = drv.test(ctx);
+                                        res = done >= batch;
+                                    }
+                                    else {
+                                        res = drv instanceof BenchmarkContextDriver ?
+                                            ((BenchmarkContextDriver)drv).test(ctx) : drv.test(ctx);
+
+                                        done = 1;
+                                    }
 
-                            probeSet.onAfterExecute(threadIdx);
+                                    if (timed)
+                                        probeSet.onAfterExecute(threadIdx, start, done);
+                                    else
+                                        probeSet.onAfterUntimedExecute(threadIdx, done);
+                                }
+                            }
 
                             if (!res) {
                                 for (BenchmarkProbeSet set : probeSets)
@@ -186,48 +331,62 @@ public class BenchmarkRunner {
                                 break;
                             }
 
-                            long now = System.currentTimeMillis();
-
-                            long elapsed = (now - testStart) / 1_000;
+                            int phase = timekeeper.phase;
 
-                            if (reset && elapsed > cfg.warmup()) {
+                            if (reset && phase != Timekeeper.WARMUP) {
                                 phaser.arriveAndAwaitAdvance();
 
                                 reset = false;
 
+                                // Do not carry over the backlog accumulated while waiting for other threads.
+                                scheduleStart = System.nanoTime() + (long)(schedulePeriod * threadIdx / threadNum);
+
+                                scheduledIters = 0;
+
                                 continue;
                             }
 
-                            if (!reset && cfg.operationsCount() == 0) {
-                                if (elapsed > totalDuration) {
-                                    for (BenchmarkProbeSet set : probeSets)
-                                        set.onFinished();
+                            if (!reset && phase == Timekeeper.DONE) {
+                                for (BenchmarkProbeSet set : probeSets)
+                                    set.onFinished();
 
-                                    break;
-                                }
+                                break;
                             }
                         }
 
+                        if (window != null)
+                            completeAsync(window, threadIdx, true);
+
+                        tearDownThread(ctx, grpIdx);
+
                         // Either interrupted, or cancelled.
                         if (finished.incrementAndGet() == threadNum)
                             shutdown();
                     }
                     catch (Throwable e) {
                         try {
-                            if (drv != null)
+                            if (e instanceof AsyncOperationException)
+                                drivers[((AsyncOperationException)e).drvIdx].onException(e.getCause());
+                            else if (drv != null)
                                 drv.onException(e);
                         }
                         catch (Throwable ignore) {
                             // No-op.
                         }
 
+                        tearDownThread(ctx, grpIdx);
+
                         phaser.forceTermination();
 
                         // Stop whole benchmark execution.
                         cancel(e);
                     }
+                    finally {
+                        if (!cfg.virtualThreads())
+                            BenchmarkUtils.unregisterWorkerThread();
+                    }
                 }
-            }, "benchmark-worker-" + i));
+            }, BenchmarkUtils.WORKER_THREAD_PREFIX + i, cfg.virtualThreads()));
         }
 
         for (Thread t : threads)
@@ -238,19 +397,29 @@ public class BenchmarkRunner {
      *
      */
     private void startBuildingThread() {
-        final long interval = interval(cfg);
+        final long interval = MILLISECONDS.toNanos(Math.max(1, interval(cfg)));
 
         buildingThread = new Thread() {
-            @SuppressWarnings("BusyWait")
             @Override public void run() {
                 try {
+                    // Points are built at fixed rate, so that time spent building them does not accumulate.
+                    long next = System.nanoTime();
+
                     while (!Thread.currentThread().isInterrupted()) {
                         long time = System.currentTimeMillis();
 
                         for (BenchmarkProbeSet probeSet : probeSets)
                             probeSet.buildPoint(time);
 
-                        Thread.sleep(interval);
+                        next += interval;
+
+                        long now = System.nanoTime();
+
+                        // Skip points missed during a stall instead of building them back to back.
+                        if (next - now <= 0)
+                            next = now + interval - (now - next) % interval;
+
+                        NANOSECONDS.sleep(next - now);
                     }
                 }
                 catch (InterruptedException ignore) {
@@ -263,41 +432,204 @@ public class BenchmarkRunner {
     }
 
     /**
-     * @param rand Random.
-     * @param sumWeight Sum of weights.
-     * @return Driver index.
+     * @param sampling Latency sampling interval.
+     * @param rand Random generator of the worker.
+     * @return Number of iterations until the next timed one, every one is timed if sampling is off.
+     */
+    private long sampleDistance(int sampling, SplittableRandom rand) {
+        if (sampling == 1)
+            return 1;
+
+        if (!cfg.latencySamplingRandom())
+            return sampling;
+
+        // Geometric distribution, so that every iteration is timed with probability 1 / sampling.
+        return 1 + (long)(Math.log(1 - rand.nextDouble()) / Math.log1p(-1d / sampling));
+    }
+
+    /**
+     * Hands completed asynchronous operations over to probes.
+     *
+     * @param window Window of operations started by the worker.
+     * @param threadIdx Worker index.
+     * @param all Whether to wait for all operations in flight to complete.
+     * @return {@code False} if some driver requested shutdown.
+     * @throws Exception If some operation failed.
+     */
+    private boolean completeAsync(BenchmarkAsyncWindow window, int threadIdx, boolean all) throws Exception {
+        boolean res = true;
+
+        while (true) {
+            BenchmarkAsyncWindow.Completion c = window.poll();
+
+            if (c == null) {
+                if (!all || window.isEmpty() || cancelled)
+                    return res;
+
+                window.await();
+
+                continue;
+            }
+
+            if (c.err != null)
+                throw new AsyncOperationException(c.drvIdx, c.err);
+
+            probeSets[c.drvIdx].onExecuted(threadIdx, c.startNanos, c.endNanos);
+
+            if (c.res == null || !c.res)
+                res = false;
+        }
+    }
+
+    /**
+     * Starts asynchronous operation as soon as the window has room for it.
+     *
+     * @param window Window of operations started by the worker.
+     * @param drv Driver.
+     * @param drvIdx Driver index.
+     * @param ctx Worker context.
+     * @param threadIdx Worker index.
+     * @param scheduled Whether the operation has intended start time.
+     * @param intendedStart Intended start time.
+     * @return {@code False} if some driver requested shutdown.
      * @throws Exception If failed.
      */
-    private int driverIndex(Random rand, int sumWeight) throws Exception {
-        int len = weights.length;
+    private boolean startAsync(BenchmarkAsyncWindow window, BenchmarkAsyncDriver drv, int drvIdx,
+        BenchmarkContext ctx, int threadIdx, boolean scheduled, long intendedStart) throws Exception {
+        boolean res = true;
+
+        while (res && window.full() && !cancelled) {
+            window.await();
+
+            res = completeAsync(window, threadIdx, false);
+        }
+
+        if (res && !cancelled)
+            window.add(drv.testAsync(ctx), drvIdx, scheduled ? intendedStart : System.nanoTime());
+
+        return res;
+    }
+
+    /**
+     * Releases per-thread state of context aware drivers.
+     *
+     * @param ctx Worker context.
+     * @param grpIdx Driver of the thread group or {@code -1} if the thread runs all drivers.
+     */
+    private void tearDownThread(BenchmarkContext ctx, int grpIdx) {
+        for (int i = 0; i < drivers.length; i++) {
+            BenchmarkDriver drv = drivers[i];
+
+            if (drv instanceof BenchmarkContextDriver && (grpIdx < 0 || grpIdx == i)) {
+                try {
+                    ((BenchmarkContextDriver)drv).tearDownThread(ctx);
+                }
+                catch (Exception e) {
+                    errorHelp(cfg, "Failed to release thread state of driver [driver=" + drv +
+                        ", thread=" + ctx.threadIndex() + ", err=" + e.getMessage() + ']', e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param threadNum Number of threads.
+     * @return Driver index of every thread or {@code null} if threads are not grouped.
+     * @throws Exception If groups do not match the number of threads.
+     */
+    private int[] threadDrivers(int threadNum) throws Exception {
+        if (groups == null)
+            return null;
+
+        int[] res = new int[threadNum];
 
-        if (len == 1)
-            return 0;
+        int idx = 0;
 
-        int w = rand.nextInt(sumWeight);
+        for (int i = 0; i < groups.length; i++) {
+            for (int j = 0; j < groups[i]; j++, idx++) {
+                if (idx < threadNum)
+                    res[idx] = i;
+            }
+        }
 
-        int sum = 0;
+        if (idx != threadNum)
+            throw new Exception("Sum of thread group sizes does not match thread count " +
+                "[groups=" + Arrays.toString(groups) + ", threads=" + threadNum + ']');
 
-        for (int i = 0; i < len; i++) {
-            sum += weights[i];
+        return res;
+    }
 
-            if (sum > w)
-                return i;
+    /**
+     * @return {@code True} if some driver is asynchronous.
+     */
+    private boolean hasAsyncDrivers() {
+        for (BenchmarkDriver drv : drivers) {
+            if (drv instanceof BenchmarkAsyncDriver)
+                return true;
         }
 
-        throw new Exception("Can not reach here.");
+        return false;
     }
 
     /**
-     * @return Sum of weights.
+     * Creates benchmark worker thread.
+     *
+     * @param r Worker body.
+     * @param name Thread name.
+     * @param virtual Whether to create virtual thread.
+     * @return Unstarted thread.
+     * @throws Exception If virtual threads are requested but not supported by the JVM.
      */
-    private int sumWeights() {
-        int sumWeight = 0;
+    private static Thread newWorker(Runnable r, String name, boolean virtual) throws Exception {
+        if (!virtual)
+            return new Thread(r, name);
 
-        for (int w : weights)
-            sumWeight += w;
+        try {
+            Class<?> builderCls = Class.forName("java.lang.Thread$Builder");
+
+            Object builder = builderCls.getMethod("name", String.class).invoke(virtualThreadBuilder(), name);
+
+            return (Thread)builderCls.getMethod("unstarted", Runnable.class).invoke(builder, r);
+        }
+        catch (InvocationTargetException e) {
+            throw new Exception("Failed to create virtual thread [name=" + name + ']', e.getCause());
+        }
+    }
 
-        return sumWeight;
+    /**
+     * Gets virtual thread builder. Virtual threads API is accessed reflectively
+     * to keep the framework runnable on older JVMs.
+     *
+     * @return Virtual thread builder.
+     * @throws Exception If virtual threads are not supported by the JVM.
+     */
+    private static Object virtualThreadBuilder() throws Exception {
+        try {
+            return Thread.class.getMethod("ofVirtual").invoke(null);
+        }
+        catch (NoSuchMethodException | InvocationTargetException e) {
+            throw new Exception("Virtual threads are not supported by the JVM, Java 21 or later is required " +
+                "[javaVersion=" + System.getProperty("java.version") + ']', e);
+        }
+    }
+
+    /**
+     * Waits until scheduled iteration start time. Returns immediately if the worker is behind the schedule.
+     *
+     * @param intendedStart Intended iteration start time, in {@link System#nanoTime()} units.
+     */
+    private void awaitScheduledStart(long intendedStart) {
+        while (!cancelled) {
+            long remaining = intendedStart - System.nanoTime();
+
+            if (remaining <= 0)
+                return;
+
+            if (remaining > SCHEDULE_SPIN_NANOS)
+                LockSupport.parkNanos(Math.min(remaining - SCHEDULE_SPIN_NANOS, SCHEDULE_MAX_PARK_NANOS));
+            else
+                Thread.yield();
+        }
     }
 
     /**
@@ -349,6 +681,96 @@ public class BenchmarkRunner {
         }
     }
 
+    /**
+     * Failure of asynchronous operation.
+     */
+    private static class AsyncOperationException extends Exception {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Index of the driver that started the operation. */
+        private final int drvIdx;
+
+        /**
+         * @param drvIdx Index of the driver that started the operation.
+         * @param cause Operation error.
+         */
+        AsyncOperationException(int drvIdx, Throwable cause) {
+            super("Asynchronous operation failed.", cause);
+
+            this.drvIdx = drvIdx;
+        }
+    }
+
+    /**
+     * Switches benchmark phases at configured instants, so workers check a flag instead of reading the clock.
+     */
+    private static class Timekeeper extends Thread {
+        /** Warmup phase. */
+        static final int WARMUP = 0;
+
+        /** Main test phase. */
+        static final int MEASURE = 1;
+
+        /** Test duration elapsed. */
+        static final int DONE = 2;
+
+        /** Warmup duration, in milliseconds. */
+        private final long warmupMs;
+
+        /** Main test duration, in milliseconds, {@code 0} if not limited by time. */
+        private final long durationMs;
+
+        /** Current phase. */
+        volatile int phase;
+
+        /**
+         * @param warmupMs Warmup duration, in milliseconds.
+         * @param durationMs Main test duration, in milliseconds, {@code 0} if not limited by time.
+         */
+        Timekeeper(long warmupMs, long durationMs) {
+            super("benchmark-timekeeper");
+
+            this.warmupMs = warmupMs;
+            this.durationMs = durationMs;
+
+            phase = warmupMs > 0 ? WARMUP : MEASURE;
+
+            setDaemon(true);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void run() {
+            long start = System.nanoTime();
+
+            try {
+                sleepUntil(start + MILLISECONDS.toNanos(warmupMs));
+
+                phase = MEASURE;
+
+                if (durationMs > 0) {
+                    sleepUntil(start + MILLISECONDS.toNanos(warmupMs + durationMs));
+
+                    phase = DONE;
+                }
+            }
+            catch (InterruptedException ignore) {
+                // No-op.
+            }
+        }
+
+        /**
+         * @param deadline Deadline, in {@link System#nanoTime()} units.
+         * @throws InterruptedException If interrupted.
+         */
+        private static void sleepUntil(long deadline) throws InterruptedException {
+            long remaining;
+
+            while ((remaining = deadline - System.nanoTime()) > 0)
+                NANOSECONDS.sleep(remaining);
+        }
+    }
+
     /**
      *
      */
@@ -359,6 +781,11 @@ public class BenchmarkRunner {
                 errorHelp(cfg, "Shutting down benchmark driver to unexpected exception.", err);
 
             try {
+                if (timekeeper != null) {
+                    timekeeper.interrupt();
+                    timekeeper.join();
+                }
+
                 if (buildingThread != null) {
                     buildingThread.interrupt();
                     buildingThread.join();
@@ -0,0 +1,290 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimingProbe;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.WORKER_THREAD_PREFIX;
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports memory allocation and CPU time of benchmark worker threads: allocation rate,
+ * allocated bytes per operation, CPU time per operation and number of processors busy with workers.
+ * <p>
+ * Workers only count operations in their own padded cells. Allocated bytes and CPU time of worker threads
+ * are read by the building thread at interval boundaries with bulk {@link ThreadMXBean} calls, so probe
+ * costs nothing per operation beyond the counter. Values include everything worker threads do, for example
+ * probe callbacks and waits in constant-rate mode. If threads run several drivers, every driver is
+ * accounted with all costs of threads that executed its operations.
+ * <p>
+ * Probe is disabled in virtual threads mode, since the JVM does not account virtual threads separately.
+ */
+public class AllocationCpuProbe implements BenchmarkTimingProbe {
+    /** Cell length in longs, two cache lines to also defeat adjacent line prefetch. */
+    private static final int CELL_LEN = 16;
+
+    /** */
+    private static final double MB = 1024 * 1024;
+
+    /** Padded cumulative operations cells, one per thread. */
+    private AtomicLongArray cells;
+
+    /** Threads bean. */
+    private ThreadMXBean threadBean;
+
+    /** Worker thread IDs by thread index, {@code 0} until the thread is found. */
+    private long[] tids;
+
+    /** Number of found worker threads, accessed by the building thread only. */
+    private int found;
+
+    /** Operations per thread at the previous point, accessed by the building thread only. */
+    private long[] lastOps;
+
+    /** Allocated bytes per thread at the previous point, accessed by the building thread only. */
+    private long[] lastAlloc;
+
+    /** CPU time per thread at the previous point, accessed by the building thread only. */
+    private long[] lastCpu;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        if (cfg.virtualThreads()) {
+            println(cfg, getClass().getSimpleName() + " is disabled (benchmark workers are virtual threads).");
+
+            return;
+        }
+
+        try {
+            ThreadMXBean bean = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+            if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadCpuTimeSupported()) {
+                println(cfg, getClass().getSimpleName() + " is disabled (thread allocation or CPU time " +
+                    "accounting is not supported by the JVM).");
+
+                return;
+            }
+
+            if (!bean.isThreadAllocatedMemoryEnabled())
+                bean.setThreadAllocatedMemoryEnabled(true);
+
+            if (!bean.isThreadCpuTimeEnabled())
+                bean.setThreadCpuTimeEnabled(true);
+
+            threadBean = bean;
+        }
+        catch (ClassCastException | NoClassDefFoundError | UnsupportedOperationException e) {
+            errorHelp(cfg, "Thread allocation and CPU time accounting is not available.", e);
+
+            return;
+        }
+
+        int threads = cfg.threads();
+
+        // Leading and trailing cells are padding.
+        cells = new AtomicLongArray((threads + 2) * CELL_LEN);
+
+        tids = new long[threads];
+        lastOps = new long[threads];
+        lastAlloc = new long[threads];
+        lastCpu = new long[threads];
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started.");
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Time, ms", "Allocation rate, MB/sec", "Allocated per operation, bytes",
+            "CPU time per operation, nsec", "Workers CPU usage, processors");
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                findWorkers();
+
+                long[] ids = new long[found];
+                int[] idxs = new int[found];
+
+                for (int i = 0, j = 0; i < tids.length; i++) {
+                    if (tids[i] != 0) {
+                        ids[j] = tids[i];
+                        idxs[j++] = i;
+                    }
+                }
+
+                long[] alloc = threadBean.getThreadAllocatedBytes(ids);
+                long[] cpu = threadBean.getThreadCpuTime(ids);
+
+                long now = System.nanoTime();
+
+                long elapsed = Math.max(1, now - lastTstamp);
+
+                lastTstamp = now;
+
+                long ops = 0;
+                long allocated = 0;
+                long cpuTime = 0;
+
+                for (int j = 0; j < ids.length; j++) {
+                    int i = idxs[j];
+
+                    // Thread has finished.
+                    if (alloc[j] < 0 || cpu[j] < 0)
+                        continue;
+
+                    long cnt = cells.get((i + 1) * CELL_LEN);
+
+                    // Thread has not executed operations of the driver yet, costs of thread set up are skipped.
+                    if (cnt == 0) {
+                        lastAlloc[i] = alloc[j];
+                        lastCpu[i] = cpu[j];
+
+                        continue;
+                    }
+
+                    ops += cnt - lastOps[i];
+                    allocated += alloc[j] - lastAlloc[i];
+                    cpuTime += cpu[j] - lastCpu[i];
+
+                    lastOps[i] = cnt;
+                    lastAlloc[i] = alloc[j];
+                    lastCpu[i] = cpu[j];
+                }
+
+                collectPoint(new BenchmarkProbePoint(time, new double[] {
+                    allocated / MB * 1_000_000_000d / elapsed,
+                    ops == 0 ? 0 : (double)allocated / ops,
+                    ops == 0 ? 0 : (double)cpuTime / ops,
+                    (double)cpuTime / elapsed}));
+            }
+        });
+    }
+
+    /**
+     * Finds IDs of worker threads which are not found yet. Counters of a found thread start from
+     * the moment it is found.
+     */
+    private void findWorkers() {
+        if (found == tids.length)
+            return;
+
+        for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds())) {
+            if (info == null || !info.getThreadName().startsWith(WORKER_THREAD_PREFIX))
+                continue;
+
+            int idx;
+
+            try {
+                idx = Integer.parseInt(info.getThreadName().substring(WORKER_THREAD_PREFIX.length()));
+            }
+            catch (NumberFormatException ignored) {
+                continue;
+            }
+
+            if (idx >= tids.length || tids[idx] != 0)
+                continue;
+
+            long id = info.getThreadId();
+
+            tids[idx] = id;
+
+            lastOps[idx] = cells.get((idx + 1) * CELL_LEN);
+            lastAlloc[idx] = threadBean.getThreadAllocatedBytes(id);
+            lastCpu[idx] = threadBean.getThreadCpuTime(id);
+
+            found++;
+        }
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops) {
+        onExecuted(threadIdx, ops);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, int ops) {
+        if (cells != null && ops > 0) {
+            int idx = (threadIdx + 1) * CELL_LEN;
+
+            // Single writer, ordered store is enough to publish to the building thread.
+            cells.lazySet(idx, cells.get(idx) + ops);
+        }
+    }
+}
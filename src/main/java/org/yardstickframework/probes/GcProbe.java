@@ -0,0 +1,195 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbe;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports garbage collections of the driver JVM. For every collector it reports number
+ * of collections, their total and maximum duration and reclaimed memory per probe point interval.
+ * <p>
+ * Collections are received as {@link GarbageCollectorMXBean} notifications, so no collection is missed
+ * and no polling is done. Durations of stop-the-world collectors are pauses, durations of concurrent
+ * collectors (for example, {@code ZGC Cycles}) are cycle times. The JFreeChart result page marks
+ * intervals with collections on throughput and latency charts of the same run.
+ */
+public class GcProbe implements BenchmarkProbe {
+    /** Offset of collections count in collector statistics. */
+    private static final int CNT = 0;
+
+    /** Offset of total duration. */
+    private static final int TOTAL = 1;
+
+    /** Offset of maximum duration. */
+    private static final int MAX = 2;
+
+    /** Offset of reclaimed bytes. */
+    private static final int RECLAIMED = 3;
+
+    /** Collectors. */
+    private final List<GarbageCollectorMXBean> gcs = new ArrayList<>();
+
+    /** Statistics of the current interval by collector, guarded by this probe. */
+    private long[][] stats;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Collection notification listener. */
+    private final NotificationListener lsnr = new NotificationListener() {
+        @Override public void handleNotification(Notification n, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType()))
+                return;
+
+            GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData)n.getUserData()).getGcInfo();
+
+            long reclaimed = 0;
+
+            Map<String, MemoryUsage> after = info.getMemoryUsageAfterGc();
+
+            for (Map.Entry<String, MemoryUsage> e : info.getMemoryUsageBeforeGc().entrySet()) {
+                MemoryUsage usage = after.get(e.getKey());
+
+                if (usage != null)
+                    reclaimed += Math.max(0, e.getValue().getUsed() - usage.getUsed());
+            }
+
+            onCollection((Integer)handback, info.getDuration(), reclaimed);
+        }
+    };
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        try {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter) {
+                    ((NotificationEmitter)gc).addNotificationListener(lsnr, null, gcs.size());
+
+                    gcs.add(gc);
+                }
+            }
+        }
+        catch (NoClassDefFoundError e) {
+            errorHelp(cfg, "Garbage collection notifications are not supported by the JVM.", e);
+        }
+
+        stats = new long[gcs.size()][4];
+
+        println(cfg, getClass().getSimpleName() + " is started [collectors=" + names() + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        for (GarbageCollectorMXBean gc : gcs)
+            ((NotificationEmitter)gc).removeNotificationListener(lsnr);
+
+        gcs.clear();
+
+        println(cfg, getClass().getSimpleName() + " is stopped.");
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        List<String> res = new ArrayList<>();
+
+        res.add("Time, ms");
+
+        for (String name : names()) {
+            res.add(name + " collections");
+            res.add(name + " total time, ms");
+            res.add(name + " max time, ms");
+            res.add(name + " reclaimed, MB");
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized void buildPoint(long time) {
+        double[] vals = new double[stats.length * 4];
+
+        for (int i = 0; i < stats.length; i++) {
+            long[] s = stats[i];
+
+            vals[i * 4] = s[CNT];
+            vals[i * 4 + 1] = s[TOTAL];
+            vals[i * 4 + 2] = s[MAX];
+            vals[i * 4 + 3] = s[RECLAIMED] / (1024d * 1024);
+
+            s[CNT] = s[TOTAL] = s[MAX] = s[RECLAIMED] = 0;
+        }
+
+        collected.add(new BenchmarkProbePoint(time, vals));
+    }
+
+    /**
+     * @param gcIdx Collector index.
+     * @param duration Collection duration, in milliseconds.
+     * @param reclaimed Reclaimed bytes.
+     */
+    private synchronized void onCollection(int gcIdx, long duration, long reclaimed) {
+        long[] s = stats[gcIdx];
+
+        s[CNT]++;
+        s[TOTAL] += duration;
+        s[MAX] = Math.max(s[MAX], duration);
+        s[RECLAIMED] += reclaimed;
+    }
+
+    /**
+     * @return Collector names.
+     */
+    private List<String> names() {
+        List<String> res = new ArrayList<>(gcs.size());
+
+        for (GarbageCollectorMXBean gc : gcs)
+            res.add(gc.getName());
+
+        return res;
+    }
+}
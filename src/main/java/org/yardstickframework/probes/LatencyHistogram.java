@@ -0,0 +1,299 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory log-linear histogram of latencies in nanoseconds, laid out like HdrHistogram.
+ * <p>
+ * Values are grouped into buckets of exponentially growing magnitude, each split into equally sized
+ * sub-buckets, so the relative error of any recorded value stays within configured number of
+ * significant decimal digits. Values below {@code 2 * 10^digits} nanoseconds are exact, values above
+ * highest trackable value are recorded as the highest one. Histograms with the same layout can be
+ * added to and subtracted from each other.
+ * <p>
+ * Recording does not allocate. {@link #record(long, long)} is for a single writer and publishes counts
+ * with ordered writes, {@link #recordConcurrent(long, long)} is for histograms shared by several writers.
+ * Counts can be read by other threads at any time.
+ */
+public class LatencyHistogram {
+    /** Highest trackable value. */
+    private final long highest;
+
+    /** Number of significant decimal digits. */
+    private final int digits;
+
+    /** Power of two of sub-buckets half count. */
+    private final int subBucketHalfCountMagnitude;
+
+    /** Half of sub-buckets count, the number of distinct counts per bucket except the first one. */
+    private final int subBucketHalfCount;
+
+    /** Mask of values fitting the first bucket. */
+    private final long subBucketMask;
+
+    /** Base for bucket index computation from leading zeros count. */
+    private final int leadingZeroCountBase;
+
+    /** Counts. */
+    private final AtomicLongArray counts;
+
+    /**
+     * @param highest Highest trackable value, in nanoseconds.
+     * @param digits Number of significant decimal digits, from {@code 1} to {@code 5}.
+     */
+    public LatencyHistogram(long highest, int digits) {
+        if (digits < 1 || digits > 5)
+            throw new IllegalArgumentException("Significant digits must be from 1 to 5: " + digits);
+
+        if (highest < 2)
+            throw new IllegalArgumentException("Highest trackable value must be at least 2: " + highest);
+
+        this.highest = highest;
+        this.digits = digits;
+
+        long largestSingleUnitVal = 2 * (long)Math.pow(10, digits);
+
+        int subBucketCountMagnitude = (int)Math.ceil(Math.log(largestSingleUnitVal) / Math.log(2));
+
+        subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+
+        int subBucketCnt = 1 << subBucketCountMagnitude;
+
+        subBucketHalfCount = subBucketCnt / 2;
+        subBucketMask = subBucketCnt - 1;
+
+        leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+
+        int bucketsCnt = 1;
+
+        for (long smallestUntrackable = subBucketCnt; smallestUntrackable <= highest; smallestUntrackable <<= 1) {
+            if (smallestUntrackable > Long.MAX_VALUE / 2) {
+                bucketsCnt++;
+
+                break;
+            }
+
+            bucketsCnt++;
+        }
+
+        counts = new AtomicLongArray((bucketsCnt + 1) * subBucketHalfCount);
+    }
+
+    /**
+     * @return Empty histogram with the same layout.
+     */
+    public LatencyHistogram newEmpty() {
+        return new LatencyHistogram(highest, digits);
+    }
+
+    /**
+     * @return Copy of this histogram.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram res = newEmpty();
+
+        res.add(this);
+
+        return res;
+    }
+
+    /**
+     * Records values by the only writer of this histogram.
+     *
+     * @param val Value, in nanoseconds.
+     * @param cnt Number of occurrences of the value.
+     */
+    public void record(long val, long cnt) {
+        int idx = index(val);
+
+        counts.lazySet(idx, counts.get(idx) + cnt);
+    }
+
+    /**
+     * Records values by one of several writers of this histogram.
+     *
+     * @param val Value, in nanoseconds.
+     * @param cnt Number of occurrences of the value.
+     */
+    public void recordConcurrent(long val, long cnt) {
+        counts.getAndAdd(index(val), cnt);
+    }
+
+    /**
+     * Adds counts of other histogram to this one. This histogram must not be concurrently recorded to.
+     *
+     * @param other Histogram with the same layout.
+     */
+    public void add(LatencyHistogram other) {
+        checkLayout(other);
+
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+
+            if (c != 0)
+                counts.lazySet(i, counts.get(i) + c);
+        }
+    }
+
+    /**
+     * Subtracts counts of other histogram from this one. This histogram must not be concurrently recorded to.
+     *
+     * @param other Histogram with the same layout, not greater than this one in any count.
+     */
+    public void subtract(LatencyHistogram other) {
+        checkLayout(other);
+
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+
+            if (c != 0)
+                counts.lazySet(i, counts.get(i) - c);
+        }
+    }
+
+    /**
+     * Clears the histogram. It must not be concurrently recorded to.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++)
+            counts.lazySet(i, 0);
+    }
+
+    /**
+     * @return Total number of recorded values.
+     */
+    public long totalCount() {
+        long res = 0;
+
+        for (int i = 0; i < counts.length(); i++)
+            res += counts.get(i);
+
+        return res;
+    }
+
+    /**
+     * @param percentile Percentile, from {@code 0} to {@code 100}.
+     * @return Highest value equivalent to the value at given percentile, {@code 0} if histogram is empty.
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = totalCount();
+
+        if (total == 0)
+            return 0;
+
+        long target = Math.max(1, (long)Math.ceil(Math.min(percentile, 100) / 100 * total));
+
+        long cnt = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            cnt += counts.get(i);
+
+            if (cnt >= target)
+                return highestEquivalentValue(i);
+        }
+
+        return maxValue();
+    }
+
+    /**
+     * @return Highest value equivalent to the maximum recorded value, {@code 0} if histogram is empty.
+     */
+    public long maxValue() {
+        for (int i = counts.length() - 1; i >= 0; i--) {
+            if (counts.get(i) != 0)
+                return highestEquivalentValue(i);
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return Memory taken by counts, in bytes.
+     */
+    public long footprint() {
+        return counts.length() * 8L;
+    }
+
+    /**
+     * @return Number of counts, each count covers a range of equivalent values.
+     */
+    public int length() {
+        return counts.length();
+    }
+
+    /**
+     * @param idx Count index.
+     * @return Number of recorded values in the range.
+     */
+    public long count(int idx) {
+        return counts.get(idx);
+    }
+
+    /**
+     * @param idx Count index.
+     * @return Lowest value of the range.
+     */
+    public long lowestEquivalentValue(int idx) {
+        int bucketIdx = (idx >> subBucketHalfCountMagnitude) - 1;
+
+        long subBucketIdx = (idx & (subBucketHalfCount - 1)) + subBucketHalfCount;
+
+        if (bucketIdx < 0) {
+            subBucketIdx -= subBucketHalfCount;
+
+            bucketIdx = 0;
+        }
+
+        return subBucketIdx << bucketIdx;
+    }
+
+    /**
+     * @param idx Count index.
+     * @return Highest value of the range.
+     */
+    public long highestEquivalentValue(int idx) {
+        int bucketIdx = Math.max(0, (idx >> subBucketHalfCountMagnitude) - 1);
+
+        return lowestEquivalentValue(idx) + (1L << bucketIdx) - 1;
+    }
+
+    /**
+     * @param val Value.
+     * @return Count index.
+     */
+    private int index(long val) {
+        if (val < 0)
+            val = 0;
+        else if (val > highest)
+            val = highest;
+
+        int bucketIdx = leadingZeroCountBase - Long.numberOfLeadingZeros(val | subBucketMask);
+
+        int subBucketIdx = (int)(val >>> bucketIdx);
+
+        return ((bucketIdx + 1) << subBucketHalfCountMagnitude) + (subBucketIdx - subBucketHalfCount);
+    }
+
+    /**
+     * @param other Other histogram.
+     */
+    private void checkLayout(LatencyHistogram other) {
+        if (other.highest != highest || other.digits != digits)
+            throw new IllegalArgumentException("Histograms have different layout [highest=" + highest +
+                ", digits=" + digits + ", otherHighest=" + other.highest + ", otherDigits=" + other.digits + ']');
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimingProbe;
+import org.yardstickframework.BenchmarkTotalsOnlyProbe;
+
+import static org.yardstickframework.BenchmarkUtils.driverName;
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+import static org.yardstickframework.BenchmarkUtils.probeStripes;
+import static org.yardstickframework.writers.BenchmarkProbePointCsvWriter.FORMAT;
+
+/**
+ * Probe that logs start time and latency of every timed test sample to a binary file for post-mortem
+ * analysis, see {@link LatencyLogReader}.
+ * <p>
+ * Records are {@code (threadIdx, startNanos, latencyNanos, ops, driverIdx)} tuples encoded as variable
+ * length integers, start time as a delta from the previous record of the same buffer, so a record usually
+ * takes 8 to 12 bytes. Every worker thread fills its own direct buffer, in virtual threads mode buffers
+ * are striped and shared. A full buffer is handed over to the flusher thread that appends it to
+ * a memory-mapped file, and the worker continues with a spare one, so nothing is allocated on the worker
+ * path. If the flusher falls behind, the worker waits for a spare buffer rather than drop records.
+ * <p>
+ * The file starts with a header of magic number, format version, {@link System#nanoTime()} and
+ * {@link System#currentTimeMillis()} at probe start, {@link System#nanoTime()} at the end of the warmup
+ * and the end of written data, followed by blocks of records, each prefixed with its length. Records of
+ * different buffers are not ordered with respect to each other. The header is updated after every block,
+ * so a log of a crashed driver can be read up to the last written block.
+ */
+public class LatencyLogProbe implements BenchmarkTimingProbe, BenchmarkTotalsOnlyProbe {
+    /** */
+    public static final String FOLDER = "BENCHMARK_PROBE_LATENCY_LOG_FOLDER";
+
+    /** */
+    public static final String BUFFER_SIZE = "BENCHMARK_PROBE_LATENCY_LOG_BUFFER_KB";
+
+    /** */
+    public static final int DEFAULT_BUFFER_SIZE = 128;
+
+    /** File magic number. */
+    static final int MAGIC = 0x59534c4c;
+
+    /** File format version. */
+    static final int VERSION = 2;
+
+    /** Header offset of the warmup end time, in {@link System#nanoTime()} units, {@code 0} if unknown. */
+    static final int WARMUP_END_OFF = 24;
+
+    /** Header offset of the end of written data. */
+    static final int DATA_END_OFF = 32;
+
+    /** File header size. */
+    static final int HEADER_SIZE = 40;
+
+    /** Maximum size of encoded record. */
+    private static final int MAX_RECORD_SIZE = 40;
+
+    /** Buffers per stripe, the one being filled and a spare one. */
+    private static final int BUFFERS_PER_STRIPE = 2;
+
+    /** Size of file region mapped at once. */
+    private static final int MAP_SIZE = 64 * 1024 * 1024;
+
+    /** Size of file region mapped at once, smaller in tests. */
+    int mapSize = MAP_SIZE;
+
+    /** Buffers, one per thread or striped in virtual threads mode. */
+    private Stripe[] stripes;
+
+    /** Whether buffers are filled by several threads. */
+    private boolean shared;
+
+    /** Driver index. */
+    private int drvIdx;
+
+    /** Full buffers waiting to be flushed. */
+    private BlockingQueue<Buffer> full;
+
+    /** Flusher thread. */
+    private Flusher flusher;
+
+    /** Log file. */
+    private File file;
+
+    /** */
+    private RandomAccessFile raf;
+
+    /** Warmup end time, in {@link System#nanoTime()} units, {@code 0} until the warmup is finished. */
+    private volatile long warmupEnd;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        drvIdx = driverIndex(drv, cfg);
+
+        int bufSize = bufferSize(cfg) * 1024;
+
+        stripes = new Stripe[probeStripes(cfg)];
+
+        shared = stripes.length < cfg.threads();
+
+        full = new ArrayBlockingQueue<>(stripes.length * BUFFERS_PER_STRIPE);
+
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe(bufSize);
+
+        file = logFile(drv, cfg);
+
+        raf = new RandomAccessFile(file, "rw");
+
+        flusher = new Flusher(raf.getChannel());
+
+        flusher.start();
+
+        println(cfg, getClass().getSimpleName() + " is started, samples will be logged to: " + file.getAbsolutePath());
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (flusher == null)
+            return;
+
+        // Workers are stopped, hand over partially filled buffers.
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                if (s.cur != null && s.cur.data.position() > 0)
+                    s.handOver();
+            }
+        }
+
+        flusher.stopping = true;
+
+        flusher.join();
+
+        long size = flusher.size;
+
+        raf.close();
+
+        flusher = null;
+
+        // Readers stop at the data end recorded in the header, trailing part of the last mapped region
+        // is only cut to save space. Some platforms do not allow it until the region is unmapped.
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.setLength(size);
+        }
+        catch (IOException ignored) {
+            // No-op.
+        }
+
+        long recs = 0;
+
+        for (Stripe s : stripes)
+            recs += s.records;
+
+        println(cfg, getClass().getSimpleName() + " is stopped [records=" + recs + ", bytes=" + file.length() +
+            ", file=" + file.getAbsolutePath() + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Latency log", "Records");
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<BenchmarkProbePoint> points() {
+        // The first call is at the end of the warmup.
+        if (warmupEnd == 0)
+            warmupEnd = System.nanoTime();
+
+        return Collections.emptyList();
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(long time) {
+        // No-op.
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops) {
+        Stripe s = stripes[threadIdx % stripes.length];
+
+        if (shared) {
+            synchronized (s) {
+                s.append(threadIdx, startNanos, endNanos - startNanos, ops);
+            }
+        }
+        else
+            s.append(threadIdx, startNanos, endNanos - startNanos, ops);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, int ops) {
+        // No-op, only timed samples are logged.
+    }
+
+    /**
+     * @param drv Driver.
+     * @param cfg Configuration.
+     * @return Index of the driver in configured driver names, {@code 0} if not found.
+     */
+    private static int driverIndex(BenchmarkDriver drv, BenchmarkConfiguration cfg) {
+        if (cfg.driverNames() == null)
+            return 0;
+
+        String simpleName = drv.getClass().getSimpleName();
+
+        for (int i = 0; i < cfg.driverNames().size(); i++) {
+            if (simpleName.equals(driverName(cfg.driverNames().get(i))))
+                return i;
+        }
+
+        return 0;
+    }
+
+    /**
+     * @param drv Driver.
+     * @param cfg Configuration.
+     * @return Log file.
+     */
+    private File logFile(BenchmarkDriver drv, BenchmarkConfiguration cfg) {
+        String path = cfg.customProperties() == null ? null : cfg.customProperties().get(FOLDER);
+
+        if (path == null)
+            path = cfg.outputFolder();
+
+        File folder = path == null ? null : new File(path);
+
+        if (folder != null && !folder.exists() && !folder.mkdirs())
+            throw new IllegalStateException("Can not create folder: " + folder.getAbsolutePath());
+
+        String name = "latency-log-" + FORMAT.format(new Date()) + '-' + drv.getClass().getSimpleName() + '-' +
+            drvIdx + "-member" + cfg.memberId() + (cfg.hostName().isEmpty() ? "" : '-' + cfg.hostName()) + ".bin";
+
+        return folder == null ? new File(name) : new File(folder, name);
+    }
+
+    /**
+     * @param cfg Config.
+     * @return Buffer size, in kilobytes.
+     */
+    private static int bufferSize(BenchmarkConfiguration cfg) {
+        try {
+            return Math.max(1, Integer.parseInt(cfg.customProperties().get(BUFFER_SIZE)));
+        }
+        catch (NumberFormatException | NullPointerException ignored) {
+            return DEFAULT_BUFFER_SIZE;
+        }
+    }
+
+    /**
+     * Direct buffer with its owner.
+     */
+    private static class Buffer {
+        /** */
+        private final ByteBuffer data;
+
+        /** */
+        private final Stripe owner;
+
+        /**
+         * @param size Size.
+         * @param owner Owner.
+         */
+        Buffer(int size, Stripe owner) {
+            data = ByteBuffer.allocateDirect(size);
+
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Buffers of a thread or of a stripe of threads.
+     */
+    private class Stripe {
+        /** Empty buffers. */
+        private final BlockingQueue<Buffer> free = new ArrayBlockingQueue<>(BUFFERS_PER_STRIPE);
+
+        /** Buffer being filled, {@code null} if the worker was interrupted waiting for a free one. */
+        private Buffer cur;
+
+        /** Start time of the previous record of the current buffer. */
+        private long prevStart;
+
+        /** Number of records. */
+        private long records;
+
+        /**
+         * @param size Buffer size.
+         */
+        Stripe(int size) {
+            cur = new Buffer(size, this);
+
+            for (int i = 1; i < BUFFERS_PER_STRIPE; i++)
+                free.add(new Buffer(size, this));
+        }
+
+        /**
+         * @param threadIdx Thread index.
+         * @param start Start time.
+         * @param latency Latency.
+         * @param ops Number of operations.
+         */
+        void append(int threadIdx, long start, long latency, int ops) {
+            if (cur == null)
+                return;
+
+            ByteBuffer buf = cur.data;
+
+            putVarLong(buf, threadIdx);
+            putVarLong(buf, zigZag(start - prevStart));
+            putVarLong(buf, Math.max(0, latency));
+            putVarLong(buf, ops);
+            putVarLong(buf, drvIdx);
+
+            prevStart = start;
+
+            records++;
+
+            if (buf.remaining() < MAX_RECORD_SIZE)
+                handOver();
+        }
+
+        /**
+         * Hands the current buffer over to the flusher and takes a free one.
+         */
+        void handOver() {
+            full.add(cur);
+
+            prevStart = 0;
+
+            try {
+                cur = free.take();
+            }
+            catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+
+                cur = null;
+            }
+        }
+    }
+
+    /**
+     * Appends full buffers to memory-mapped file.
+     */
+    private class Flusher extends Thread {
+        /** */
+        private final FileChannel ch;
+
+        /** Mapped header. */
+        private MappedByteBuffer hdr;
+
+        /** Mapped region. */
+        private MappedByteBuffer map;
+
+        /** File position of the mapped region. */
+        private long mapPos = HEADER_SIZE;
+
+        /** Written bytes. */
+        private volatile long size;
+
+        /** Whether to exit once all handed over buffers are flushed. */
+        private volatile boolean stopping;
+
+        /**
+         * @param ch File channel.
+         */
+        Flusher(FileChannel ch) {
+            super("latency-log-flusher");
+
+            this.ch = ch;
+
+            setDaemon(true);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void run() {
+            boolean failed = false;
+
+            try {
+                hdr = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+                hdr.putInt(MAGIC);
+                hdr.putInt(VERSION);
+                hdr.putLong(System.nanoTime());
+                hdr.putLong(System.currentTimeMillis());
+
+                size = HEADER_SIZE;
+
+                updateHeader();
+            }
+            catch (IOException e) {
+                errorHelp(cfg, "Failed to write latency log: " + file.getAbsolutePath(), e);
+
+                failed = true;
+            }
+
+            try {
+                while (true) {
+                    Buffer buf = full.poll(100, TimeUnit.MILLISECONDS);
+
+                    if (buf == null) {
+                        if (stopping && full.isEmpty())
+                            break;
+
+                        continue;
+                    }
+
+                    ByteBuffer data = buf.data;
+
+                    if (!failed) {
+                        try {
+                            write(data);
+                        }
+                        catch (IOException e) {
+                            errorHelp(cfg, "Failed to write latency log, further records are dropped: " +
+                                file.getAbsolutePath(), e);
+
+                            failed = true;
+                        }
+                    }
+
+                    // Buffer methods are not covariant on Java 8.
+                    ((java.nio.Buffer)data).clear();
+
+                    buf.owner.free.add(buf);
+                }
+
+                if (!failed)
+                    updateHeader();
+            }
+            catch (InterruptedException ignored) {
+                // No-op.
+            }
+            finally {
+                hdr = null;
+                map = null;
+            }
+        }
+
+        /**
+         * Appends records block.
+         *
+         * @param data Records.
+         * @throws IOException If failed.
+         */
+        private void write(ByteBuffer data) throws IOException {
+            ((java.nio.Buffer)data).flip();
+
+            ensureCapacity(4 + data.remaining());
+
+            map.putInt(data.remaining());
+            map.put(data);
+
+            size = mapPos + map.position();
+
+            updateHeader();
+        }
+
+        /**
+         * Records warmup end and data end in the header.
+         */
+        private void updateHeader() {
+            hdr.putLong(WARMUP_END_OFF, warmupEnd);
+            hdr.putLong(DATA_END_OFF, size);
+        }
+
+        /**
+         * @param len Number of bytes to write.
+         * @throws IOException If failed.
+         */
+        private void ensureCapacity(int len) throws IOException {
+            if (map != null && map.remaining() >= len)
+                return;
+
+            if (map != null)
+                mapPos += map.position();
+
+            map = ch.map(FileChannel.MapMode.READ_WRITE, mapPos, Math.max(mapSize, len));
+        }
+    }
+
+    /**
+     * @param v Value.
+     * @return Zig-zag encoded value, small for small absolute values.
+     */
+    static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    /**
+     * @param buf Buffer.
+     * @param v Unsigned value.
+     */
+    static void putVarLong(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte)((v & 0x7F) | 0x80));
+
+            v >>>= 7;
+        }
+
+        buf.put((byte)v);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Date;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Reader of files written by {@link LatencyLogProbe}.
+ * <p>
+ * Can be run from the command line to print latency percentiles of the whole log or of a time window:
+ * <pre>
+ * java -cp ... org.yardstickframework.probes.LatencyLogReader &lt;file&gt; [fromSec toSec]
+ * </pre>
+ * Time window is relative to the probe start. Without a window, samples started before the end of the warmup
+ * are not accounted.
+ */
+public class LatencyLogReader {
+    /** Reported percentiles. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 99.999};
+
+    /** Log file. */
+    private final File file;
+
+    /** Probe start time, in {@link System#nanoTime()} units. */
+    private long startNanos;
+
+    /** Probe start time, in milliseconds since epoch. */
+    private long startMillis;
+
+    /** Warmup end time, in {@link System#nanoTime()} units, {@code 0} if unknown. */
+    private long warmupEndNanos;
+
+    /** End of written data. */
+    private long dataEnd;
+
+    /**
+     * @param file Log file.
+     * @throws IOException If file can not be read or has wrong format.
+     */
+    public LatencyLogReader(File file) throws IOException {
+        this.file = file;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < LatencyLogProbe.HEADER_SIZE || raf.readInt() != LatencyLogProbe.MAGIC)
+                throw new IOException("Not a latency log file: " + file.getAbsolutePath());
+
+            int ver = raf.readInt();
+
+            if (ver != LatencyLogProbe.VERSION)
+                throw new IOException("Unsupported latency log version [file=" + file.getAbsolutePath() +
+                    ", ver=" + ver + ']');
+
+            startNanos = raf.readLong();
+            startMillis = raf.readLong();
+            warmupEndNanos = raf.readLong();
+            dataEnd = raf.readLong();
+        }
+    }
+
+    /**
+     * @return Probe start time, in {@link System#nanoTime()} units.
+     */
+    public long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return Probe start time, in milliseconds since epoch.
+     */
+    public long startMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return Warmup end time, in {@link System#nanoTime()} units, {@code 0} if the log does not have it,
+     *      for example if the driver was stopped before the end of the warmup.
+     */
+    public long warmupEndNanos() {
+        return warmupEndNanos;
+    }
+
+    /**
+     * Passes every record of the log to the visitor. Records are not sorted by start time.
+     *
+     * @param visitor Visitor.
+     * @throws IOException If failed.
+     */
+    public void read(Visitor visitor) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel ch = raf.getChannel();
+
+            // Data end is 0 if the header was never updated, the rest of the file is checked block by block.
+            long end = dataEnd > 0 ? Math.min(dataEnd, ch.size()) : ch.size();
+
+            ByteBuffer lenBuf = ByteBuffer.allocate(4);
+
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+
+            for (long pos = LatencyLogProbe.HEADER_SIZE; pos + 4 <= end; ) {
+                // Buffer methods are not covariant on Java 8.
+                ((Buffer)lenBuf).clear();
+
+                readFully(ch, lenBuf, pos);
+
+                int len = lenBuf.getInt(0);
+
+                // Zeros of a mapped region that was not written to or a truncated block.
+                if (len <= 0 || pos + 4 + len > end)
+                    break;
+
+                if (buf.capacity() < len)
+                    buf = ByteBuffer.allocate(Math.max(len, buf.capacity() * 2));
+
+                ((Buffer)buf).clear().limit(len);
+
+                readFully(ch, buf, pos + 4);
+
+                ((Buffer)buf).flip();
+
+                long prevStart = 0;
+
+                while (buf.hasRemaining()) {
+                    int threadIdx = (int)getVarLong(buf);
+                    long start = prevStart + unZigZag(getVarLong(buf));
+                    long latency = getVarLong(buf);
+                    int ops = (int)getVarLong(buf);
+                    int drvIdx = (int)getVarLong(buf);
+
+                    prevStart = start;
+
+                    visitor.onRecord(threadIdx, start, latency, ops, drvIdx);
+                }
+
+                pos += 4 + len;
+            }
+        }
+        catch (BufferUnderflowException e) {
+            throw new IOException("Corrupted latency log: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Builds latency distribution of samples started after the end of the warmup, or of all samples if the
+     * log does not have the warmup end.
+     *
+     * @param hist Histogram to record latencies to.
+     * @throws IOException If failed.
+     */
+    public void histogram(LatencyHistogram hist) throws IOException {
+        histogram(warmupEndNanos == 0 ? Long.MIN_VALUE : warmupEndNanos - startNanos, Long.MAX_VALUE, hist);
+    }
+
+    /**
+     * Builds latency distribution of samples started within given window. Every operation of a batch
+     * is accounted with mean latency of the batch.
+     *
+     * @param fromNanos Window start, relative to the probe start, inclusive.
+     * @param toNanos Window end, relative to the probe start, exclusive.
+     * @param hist Histogram to record latencies to.
+     * @throws IOException If failed.
+     */
+    public void histogram(final long fromNanos, final long toNanos, final LatencyHistogram hist) throws IOException {
+        read(new Visitor() {
+            @Override public void onRecord(int threadIdx, long start, long latency, int ops, int drvIdx) {
+                long t = start - startNanos;
+
+                if (t >= fromNanos && t < toNanos && ops > 0)
+                    hist.record(latency / ops, ops);
+            }
+        });
+    }
+
+    /**
+     * @param args Log file and optional time window in seconds.
+     * @throws Exception If failed.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1 && args.length != 3) {
+            System.out.println("Usage: LatencyLogReader <file> [fromSec toSec]");
+
+            return;
+        }
+
+        LatencyLogReader rdr = new LatencyLogReader(new File(args[0]));
+
+        LatencyHistogram hist = new LatencyHistogram(SECONDS.toNanos(PercentileProbe.DEFAULT_HIGHEST_LATENCY),
+            PercentileProbe.DEFAULT_SIGNIFICANT_DIGITS);
+
+        if (args.length == 3)
+            rdr.histogram(SECONDS.toNanos(Long.parseLong(args[1])), SECONDS.toNanos(Long.parseLong(args[2])), hist);
+        else
+            rdr.histogram(hist);
+
+        System.out.println("Latency log started at " + new Date(rdr.startMillis()) + ", operations: " +
+            hist.totalCount());
+
+        for (double p : PERCENTILES)
+            System.out.println("p" + p + " = " + hist.valueAtPercentile(p) / 1000d + " usec");
+
+        System.out.println("max = " + hist.maxValue() / 1000d + " usec");
+    }
+
+    /**
+     * @param ch Channel.
+     * @param buf Buffer to fill up to its limit.
+     * @param pos File position.
+     * @throws IOException If failed or the file ends earlier.
+     */
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+
+            if (n < 0)
+                throw new EOFException();
+
+            pos += n;
+        }
+    }
+
+    /**
+     * @param buf Buffer.
+     * @return Unsigned value.
+     */
+    private static long getVarLong(ByteBuffer buf) {
+        long v = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            byte b = buf.get();
+
+            v |= (long)(b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+                return v;
+        }
+    }
+
+    /**
+     * @param v Zig-zag encoded value.
+     * @return Value.
+     */
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Log records visitor.
+     */
+    public interface Visitor {
+        /**
+         * @param threadIdx Worker thread index.
+         * @param start Sample start time, in {@link System#nanoTime()} units.
+         * @param latency Sample latency, in nanoseconds.
+         * @param ops Number of operations executed by the sample.
+         * @param drvIdx Driver index.
+         */
+        public void onRecord(int threadIdx, long start, long latency, int ops, int drvIdx);
+    }
+}
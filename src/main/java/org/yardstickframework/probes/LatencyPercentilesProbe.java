@@ -0,0 +1,199 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimingProbe;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that calculates latency percentiles of every probe point interval, so latency spikes can be
+ * seen in time.
+ * <p>
+ * Latencies are recorded the same way as by {@link PercentileProbe} and configured by the same
+ * properties, including the memory limit of histograms. Histograms of threads are cumulative, the interval
+ * distribution is the difference between their sum at the current and previous points, so recording needs
+ * neither locks nor atomic operations.
+ */
+public class LatencyPercentilesProbe implements BenchmarkTimingProbe {
+    /** Reported percentiles, maximum is reported after them. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /** Histograms, one per thread or striped in virtual threads mode. */
+    private LatencyHistogram[] stripes;
+
+    /** Whether histograms are recorded by several threads. */
+    private boolean shared;
+
+    /** Sum of all histograms at the current point, accessed by the building thread only. */
+    private LatencyHistogram cur;
+
+    /** Sum of all histograms at the previous point, accessed by the building thread only. */
+    private LatencyHistogram last;
+
+    /** Distribution of the current interval, accessed by the building thread only. */
+    private LatencyHistogram interval;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** */
+    private TimeUnit timeUnit;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        timeUnit = PercentileProbe.timeUnit(cfg);
+
+        last = new LatencyHistogram(SECONDS.toNanos(PercentileProbe.highestLatency(cfg)),
+            PercentileProbe.significantDigits(cfg));
+
+        cur = last.newEmpty();
+        interval = last.newEmpty();
+
+        stripes = new LatencyHistogram[PercentileProbe.histogramStripes(cfg, last, 1)];
+
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = last.newEmpty();
+
+        shared = stripes.length < cfg.threads();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started.");
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        String unit = timeUnit != null ? timeUnit.name().toLowerCase() : "n/a";
+
+        return Arrays.asList("Time, ms", "Latency p50, " + unit, "Latency p90, " + unit, "Latency p99, " + unit,
+            "Latency p99.9, " + unit, "Latency max, " + unit);
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                cur.reset();
+
+                for (LatencyHistogram h : stripes)
+                    cur.add(h);
+
+                interval.reset();
+
+                interval.add(cur);
+                interval.subtract(last);
+
+                LatencyHistogram tmp = last;
+
+                last = cur;
+                cur = tmp;
+
+                double[] vals = new double[PERCENTILES.length + 1];
+
+                for (int i = 0; i < PERCENTILES.length; i++)
+                    vals[i] = toUnit(interval.valueAtPercentile(PERCENTILES[i]));
+
+                vals[PERCENTILES.length] = toUnit(interval.maxValue());
+
+                collectPoint(new BenchmarkProbePoint(time, vals));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /**
+     * @param nanos Value in nanoseconds.
+     * @return Value in configured time unit.
+     */
+    private double toUnit(long nanos) {
+        return (double)nanos / timeUnit.toNanos(1);
+    }
+
+    /**
+     * Accounts every operation of a batch with mean latency of the batch.
+     *
+     * {@inheritDoc}
+     */
+    @Override public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops) {
+        if (ops > 0)
+            record(threadIdx, (endNanos - startNanos) / ops, ops);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, int ops) {
+        // No-op, percentiles are calculated over timed operations only.
+    }
+
+    /**
+     * @param threadIdx Thread index.
+     * @param latency Latency, in nanoseconds.
+     * @param ops Number of operations with given latency.
+     */
+    private void record(int threadIdx, long latency, int ops) {
+        LatencyHistogram h = stripes[threadIdx % stripes.length];
+
+        if (shared)
+            h.recordConcurrent(latency, ops);
+        else
+            h.record(latency, ops);
+    }
+}
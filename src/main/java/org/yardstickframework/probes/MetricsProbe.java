@@ -0,0 +1,236 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkMetrics;
+import org.yardstickframework.BenchmarkProbe;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that samples {@link BenchmarkMetrics} of the driver every probe point interval. Counters are
+ * reported as rate per second, gauges as is, distributions as mean, p99 and max of the interval.
+ */
+public class MetricsProbe implements BenchmarkProbe {
+    /** Reported percentile of distributions. */
+    private static final double PERCENTILE = 99;
+
+    /** Metrics of the driver. */
+    private List<BenchmarkMetrics.Metric> metrics = new ArrayList<>();
+
+    /** Counter values or distribution histograms at the previous point, by metric index. */
+    private Object[] last;
+
+    /** Sum of distribution stripes, accessed by the building thread only. */
+    private LatencyHistogram cur;
+
+    /** Distribution of the current interval, accessed by the building thread only. */
+    private LatencyHistogram interval;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        metrics = BenchmarkMetrics.of(drv).metrics();
+
+        last = new Object[metrics.size()];
+
+        int distributions = 0;
+
+        for (BenchmarkMetrics.Metric m : metrics) {
+            if (m instanceof BenchmarkMetrics.Distribution)
+                distributions++;
+        }
+
+        for (int i = 0; i < metrics.size(); i++) {
+            BenchmarkMetrics.Metric m = metrics.get(i);
+
+            if (m instanceof BenchmarkMetrics.Counter)
+                last[i] = ((BenchmarkMetrics.Counter)m).sum();
+            else if (m instanceof BenchmarkMetrics.Distribution) {
+                BenchmarkMetrics.Distribution d = (BenchmarkMetrics.Distribution)m;
+
+                LatencyHistogram h = d.newHistogram();
+
+                // Histograms of all distributions are limited as percentile probe histograms are.
+                d.stripes(PercentileProbe.histogramStripes(cfg, h, distributions));
+
+                if (cur == null) {
+                    cur = h.newEmpty();
+                    interval = h.newEmpty();
+                }
+
+                d.addTo(h);
+
+                last[i] = h;
+            }
+        }
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started [metrics=" + metrics + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        List<String> res = new ArrayList<>();
+
+        res.add("Time, ms");
+
+        for (BenchmarkMetrics.Metric m : metrics) {
+            if (m instanceof BenchmarkMetrics.Counter)
+                res.add(m.name() + ", per sec");
+            else if (m instanceof BenchmarkMetrics.Gauge)
+                res.add(m.name());
+            else {
+                res.add(m.name() + " mean");
+                res.add(m.name() + " p99");
+                res.add(m.name() + " max");
+            }
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                long now = System.nanoTime();
+
+                long elapsed = Math.max(1, now - lastTstamp);
+
+                lastTstamp = now;
+
+                List<Double> vals = new ArrayList<>();
+
+                for (int i = 0; i < metrics.size(); i++) {
+                    BenchmarkMetrics.Metric m = metrics.get(i);
+
+                    if (m instanceof BenchmarkMetrics.Counter) {
+                        long sum = ((BenchmarkMetrics.Counter)m).sum();
+
+                        vals.add((sum - (Long)last[i]) * 1_000_000_000d / elapsed);
+
+                        last[i] = sum;
+                    }
+                    else if (m instanceof BenchmarkMetrics.Gauge)
+                        vals.add(((BenchmarkMetrics.Gauge)m).value());
+                    else {
+                        BenchmarkMetrics.Distribution d = (BenchmarkMetrics.Distribution)m;
+
+                        cur.reset();
+
+                        d.addTo(cur);
+
+                        interval.reset();
+
+                        interval.add(cur);
+                        interval.subtract((LatencyHistogram)last[i]);
+
+                        LatencyHistogram tmp = (LatencyHistogram)last[i];
+
+                        last[i] = cur;
+                        cur = tmp;
+
+                        vals.add(mean(interval));
+                        vals.add((double)interval.valueAtPercentile(PERCENTILE));
+                        vals.add((double)interval.maxValue());
+                    }
+                }
+
+                double[] vals0 = new double[vals.size()];
+
+                for (int i = 0; i < vals0.length; i++)
+                    vals0[i] = vals.get(i);
+
+                collectPoint(new BenchmarkProbePoint(time, vals0));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /**
+     * @param hist Histogram.
+     * @return Mean of recorded values, each taken as the middle of its range.
+     */
+    private static double mean(LatencyHistogram hist) {
+        long cnt = 0;
+
+        double sum = 0;
+
+        for (int i = 0; i < hist.length(); i++) {
+            long c = hist.count(i);
+
+            if (c != 0) {
+                cnt += c;
+
+                sum += c * (hist.lowestEquivalentValue(i) + hist.highestEquivalentValue(i)) / 2d;
+            }
+        }
+
+        return cnt == 0 ? 0 : sum / cnt;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbe;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports utilization of every processor from {@code /proc/stat}: user, system, hardware
+ * interrupt, software interrupt and idle (including I/O wait) time, in percent of the interval. A single
+ * saturated core, for example one handling network interrupts, is not visible in total utilization
+ * reported by {@link ProcStatProbe} or {@link DStatProbe}.
+ * <p>
+ * Columns are grouped by metric: user time of all processors goes first, then system time, and so on.
+ * JFreeChart result page shows every metric as a heatmap of processors by time. Available on Linux only.
+ */
+public class PerCpuProbe implements BenchmarkProbe {
+    /** Reported metrics, in order of columns. */
+    public static final String[] METRICS = {"User", "System", "Hardware Interrupts", "Software Interrupts", "Idle"};
+
+    /** Column name prefix followed by processor number. */
+    public static final String CPU_PREFIX = "CPU ";
+
+    /** Counters per processor: user, system, irq, softirq, idle and total. */
+    private static final int COUNTERS = 6;
+
+    /** */
+    private ProcFile stat;
+
+    /** Processor numbers, in order of {@code /proc/stat} lines at start. */
+    private int[] cpus = new int[0];
+
+    /** Counters at the current point, by processor index and counter, accessed by the building thread only. */
+    private long[] cur;
+
+    /** Counters at the previous point, accessed by the building thread only. */
+    private long[] prev;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        try {
+            stat = new ProcFile("/proc/stat");
+
+            List<Integer> nums = new ArrayList<>();
+
+            stat.read();
+
+            do {
+                long cpu = stat.tokenSuffix(stat.nextToken(), "cpu");
+
+                if (cpu >= 0)
+                    nums.add((int)cpu);
+            }
+            while (stat.nextLine());
+
+            cpus = new int[nums.size()];
+
+            for (int i = 0; i < cpus.length; i++)
+                cpus[i] = nums.get(i);
+
+            cur = new long[cpus.length * COUNTERS];
+            prev = new long[cpus.length * COUNTERS];
+
+            read();
+        }
+        catch (IOException e) {
+            if (stat != null)
+                stat.close();
+
+            errorHelp(cfg, "Can not read processors statistics from /proc/stat (is it Linux?).", e);
+
+            return;
+        }
+
+        long[] tmp = prev;
+
+        prev = cur;
+        cur = tmp;
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started [cpus=" + cpus.length + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            stat.close();
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        List<String> res = new ArrayList<>(METRICS.length * cpus.length + 1);
+
+        res.add("Time, ms");
+
+        for (String metric : METRICS) {
+            for (int cpu : cpus)
+                res.add(CPU_PREFIX + cpu + ' ' + metric + ", %");
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                try {
+                    read();
+                }
+                catch (IOException e) {
+                    errorHelp(cfg, "Can not read processors statistics from /proc/stat.", e);
+
+                    return;
+                }
+
+                double[] vals = new double[METRICS.length * cpus.length];
+
+                for (int i = 0; i < cpus.length; i++) {
+                    int base = i * COUNTERS;
+
+                    long total = cur[base + METRICS.length] - prev[base + METRICS.length];
+
+                    // Processor is offline or the interval is too short to account any time.
+                    if (total <= 0)
+                        continue;
+
+                    for (int m = 0; m < METRICS.length; m++)
+                        vals[m * cpus.length + i] = Math.max(0, cur[base + m] - prev[base + m]) * 100d / total;
+                }
+
+                long[] tmp = prev;
+
+                prev = cur;
+                cur = tmp;
+
+                collectPoint(new BenchmarkProbePoint(time, vals));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /**
+     * Reads current counters of every processor. Counters of processors that are offline are not changed.
+     *
+     * @throws IOException If failed.
+     */
+    private void read() throws IOException {
+        stat.read();
+
+        // Skip summary line.
+        stat.nextLine();
+
+        int i = 0;
+
+        do {
+            long cpu = stat.tokenSuffix(stat.nextToken(), "cpu");
+
+            // Processor lines go first.
+            if (cpu < 0)
+                break;
+
+            // Processors may go offline, lines are matched by number.
+            while (i < cpus.length && cpus[i] < cpu)
+                i++;
+
+            if (i == cpus.length || cpus[i] != cpu)
+                continue;
+
+            // Fields: user nice system idle iowait irq softirq steal.
+            long user = stat.nextLong() + stat.nextLong();
+            long sys = stat.nextLong();
+            long idle = stat.nextLong() + stat.nextLong();
+            long irq = stat.nextLong();
+            long softirq = stat.nextLong();
+            long steal = Math.max(0, stat.nextLong());
+
+            int base = i * COUNTERS;
+
+            cur[base] = user;
+            cur[base + 1] = sys;
+            cur[base + 2] = irq;
+            cur[base + 3] = softirq;
+            cur[base + 4] = idle;
+            cur[base + 5] = user + sys + idle + irq + softirq + steal;
+        }
+        while (stat.nextLine());
+    }
+}
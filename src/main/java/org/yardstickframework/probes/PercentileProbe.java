@@ -17,51 +17,92 @@ package org.yardstickframework.probes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.yardstickframework.BenchmarkConfiguration;
 import org.yardstickframework.BenchmarkDriver;
-import org.yardstickframework.BenchmarkExecutionAwareProbe;
 import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimingProbe;
 import org.yardstickframework.BenchmarkTotalsOnlyProbe;
 
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import static org.yardstickframework.BenchmarkUtils.println;
+import static org.yardstickframework.BenchmarkUtils.probeStripes;
 
 /**
- * Probe that tracks the latency of each individual request and collects the time frame bucket.
+ * Probe that tracks the latency of each individual request and builds cumulative latency distribution.
+ * <p>
+ * Latencies are recorded to log-linear {@link LatencyHistogram}s, one per thread or striped in virtual
+ * threads mode, so memory is fixed and recording never allocates or locks. A histogram takes about 240 KB
+ * with default settings. If histograms of all threads exceed {@code BENCHMARK_PROBE_PERCENTILE_MEMORY_MB}
+ * (32 by default), threads share fewer histograms. Histograms are cumulative, every {@link #points()} call
+ * reports the distribution recorded since the previous call. Points are the cumulative percentage of
+ * operations at each latency range, and the summary from p50 to p99.999 and max is printed to the log.
+ * <p>
+ * In latency sampling mode only timed operations are recorded, the number of them is reported in the
+ * column name of the operations percentage.
  */
-public class PercentileProbe implements BenchmarkExecutionAwareProbe, BenchmarkTotalsOnlyProbe {
-    /** */
+public class PercentileProbe implements BenchmarkTimingProbe, BenchmarkTotalsOnlyProbe {
+    /** @deprecated Ignored, buckets of the histogram are log-linear. */
+    @Deprecated
     public static final String BUCKET_INTERVAL = "BENCHMARK_PROBE_PERCENTILE_BUCKET_INTERVAL";
 
-    /** */
+    /** @deprecated Ignored, buckets of the histogram are log-linear. */
+    @Deprecated
     public static final String BUCKETS_CNT = "BENCHMARK_PROBE_PERCENTILE_BUCKETS_CNT";
 
     /** */
     public static final String TIME_UNIT = "BENCHMARK_PROBE_PERCENTILE_TIME_UNIT";
 
     /** */
-    public static final long DEFAULT_BUCKET_INTERVAL = 100;
+    public static final String SIGNIFICANT_DIGITS = "BENCHMARK_PROBE_PERCENTILE_SIGNIFICANT_DIGITS";
 
     /** */
+    public static final String HIGHEST_LATENCY = "BENCHMARK_PROBE_PERCENTILE_HIGHEST_LATENCY_SEC";
+
+    /** Memory limit of histograms of a probe, in megabytes. */
+    public static final String HISTOGRAMS_MEMORY = "BENCHMARK_PROBE_PERCENTILE_MEMORY_MB";
+
+    /** @deprecated Ignored, buckets of the histogram are log-linear. */
+    @Deprecated
+    public static final long DEFAULT_BUCKET_INTERVAL = 100;
+
+    /** @deprecated Ignored, buckets of the histogram are log-linear. */
+    @Deprecated
     public static final int DEFAULT_BUCKETS_CNT = 200;
 
     /** */
     public static final TimeUnit DEFAULT_TIME_UNIT = MICROSECONDS;
 
-    /** Operations executed. */
-    private ThreadAgent[] agents;
-
     /** */
-    private BenchmarkConfiguration cfg;
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    /** Ten minutes. */
+    public static final long DEFAULT_HIGHEST_LATENCY = 600;
 
     /** */
-    private int bucketsCnt;
+    public static final long DEFAULT_HISTOGRAMS_MEMORY = 32;
+
+    /** Percentiles printed to the log. */
+    private static final double[] SUMMARY_PERCENTILES = {50, 90, 99, 99.9, 99.99, 99.999};
+
+    /** Histograms, one per thread or striped in virtual threads mode. */
+    private LatencyHistogram[] stripes;
+
+    /** Whether histograms are recorded by several threads. */
+    private boolean shared;
+
+    /** Sum of all histograms at the previous {@link #points()} call. */
+    private LatencyHistogram last;
+
+    /** Number of latencies reported by the last {@link #points()} call. */
+    private volatile long samples;
 
     /** */
-    private long bucketInterval;
+    private BenchmarkConfiguration cfg;
 
     /** */
     private TimeUnit timeUnit;
@@ -71,14 +112,16 @@ public class PercentileProbe implements BenchmarkExecutionAwareProbe, BenchmarkT
     @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
         this.cfg = cfg;
 
-        bucketInterval = interval(cfg);
-        bucketsCnt = count(cfg);
         timeUnit = timeUnit(cfg);
 
-        agents = new ThreadAgent[cfg.threads()];
+        last = new LatencyHistogram(SECONDS.toNanos(highestLatency(cfg)), significantDigits(cfg));
+
+        stripes = new LatencyHistogram[histogramStripes(cfg, last, 1)];
 
-        for (int i = 0; i < agents.length; i++)
-            agents[i] = new ThreadAgent();
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = last.newEmpty();
+
+        shared = stripes.length < cfg.threads();
 
         println(cfg, getClass().getSimpleName() + " is started.");
     }
@@ -90,7 +133,8 @@ public class PercentileProbe implements BenchmarkExecutionAwareProbe, BenchmarkT
 
     /** {@inheritDoc} */
     @Override public Collection<String> metaInfo() {
-        return Arrays.asList("Latency, " + unitAsString(), "Operations, %");
+        return Arrays.asList("Latency, " + unitAsString(),
+            "Operations, % (" + samples + " samples" + ThroughputLatencyProbe.samplingInfo(cfg) + ")");
     }
 
     /**
@@ -101,159 +145,190 @@ public class PercentileProbe implements BenchmarkExecutionAwareProbe, BenchmarkT
     }
 
     /** {@inheritDoc} */
-    @Override public Collection<BenchmarkProbePoint> points() {
-        int maxLen = 0;
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        LatencyHistogram total = last.newEmpty();
 
-        for (ThreadAgent agent : agents)
-            maxLen = Math.max(maxLen, agent.buckets.length);
+        for (LatencyHistogram h : stripes)
+            total.add(h);
 
-        long[] buckets0 = new long[maxLen];
+        LatencyHistogram hist = total.copy();
 
-        for (ThreadAgent agent : agents) {
-            long[] b0 = agent.reset();
+        hist.subtract(last);
 
-            for (int i = 0; i < b0.length; i++)
-                buckets0[i] += b0[i];
-        }
+        last = total;
 
-        Collection<BenchmarkProbePoint> ret = new ArrayList<>(bucketsCnt + 1);
+        long totalCnt = hist.totalCount();
 
-        if (bucketsCnt > 0)
-            ret.add(new BenchmarkProbePoint(0, new double[] {0}));
+        samples = totalCnt;
 
-        // Total sum of operations from all thread agents;
-        long totalSum = 0;
+        List<BenchmarkProbePoint> ret = new ArrayList<>();
 
-        for (long b : buckets0)
-            totalSum += b;
+        ret.add(new BenchmarkProbePoint(0, new double[] {0}));
 
-        int currBucket = 0;
+        if (totalCnt == 0)
+            return ret;
 
-        // Counted operations.
-        double counted = buckets0[currBucket];
+        long counted = 0;
 
-        double p;
+        for (int i = 0; i < hist.length(); i++) {
+            long cnt = hist.count(i);
 
-        do{
-            p = (counted * 100) / totalSum;
+            if (cnt == 0)
+                continue;
 
-            ret.add(new BenchmarkProbePoint(currBucket * bucketInterval, new double[] {p}));
-            ret.add(new BenchmarkProbePoint((currBucket + 1) * bucketInterval, new double[] {p}));
+            counted += cnt;
 
-            currBucket++;
+            double p = (counted * 100d) / totalCnt;
 
-            counted += buckets0[currBucket];
+            addPoint(ret, timeUnit.convert(hist.lowestEquivalentValue(i), NANOSECONDS), p);
+            addPoint(ret, timeUnit.convert(hist.highestEquivalentValue(i) + 1, NANOSECONDS), p);
         }
-        while (p < 99);
+
+        printSummary(hist);
 
         return ret;
     }
 
+    /**
+     * Adds step point of the distribution. Ranges narrower than time unit collapse to the same latency,
+     * only the first and the last of such points are kept.
+     *
+     * @param points Points.
+     * @param latency Latency, in configured time unit.
+     * @param p Percentage of operations.
+     */
+    private static void addPoint(List<BenchmarkProbePoint> points, long latency, double p) {
+        int size = points.size();
+
+        if (size >= 2 && points.get(size - 1).time() == latency && points.get(size - 2).time() == latency)
+            points.remove(size - 1);
+
+        points.add(new BenchmarkProbePoint(latency, new double[] {p}));
+    }
+
+    /**
+     * @param hist Histogram.
+     */
+    private void printSummary(LatencyHistogram hist) {
+        StringBuilder sb = new StringBuilder("Latency percentiles, ").append(unitAsString()).append(" [");
+
+        for (double p : SUMMARY_PERCENTILES) {
+            String name = p == (long)p ? String.valueOf((long)p) : String.valueOf(p);
+
+            sb.append('p').append(name).append('=').append(toUnit(hist.valueAtPercentile(p))).append(", ");
+        }
+
+        sb.append("max=").append(toUnit(hist.maxValue())).append(", samples=").append(hist.totalCount()).append(']');
+
+        println(cfg, sb.toString());
+    }
+
+    /**
+     * @param nanos Value in nanoseconds.
+     * @return Value in configured time unit.
+     */
+    private double toUnit(long nanos) {
+        return (double)nanos / timeUnit.toNanos(1);
+    }
+
     /** {@inheritDoc} */
     @Override public void buildPoint(long time) {
         // No-op.
     }
 
-    /** {@inheritDoc} */
-    @Override public void beforeExecute(int threadIdx) {
-        agents[threadIdx].beforeExecute();
+    /**
+     * Accounts every operation of a batch with mean latency of the batch.
+     *
+     * {@inheritDoc}
+     */
+    @Override public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops) {
+        if (ops > 0)
+            record(threadIdx, (endNanos - startNanos) / ops, ops);
     }
 
     /** {@inheritDoc} */
-    @Override public void afterExecute(int threadIdx) {
-        agents[threadIdx].afterExecute();
+    @Override public void onExecuted(int threadIdx, int ops) {
+        // No-op, the distribution is built from timed operations only.
+    }
+
+    /**
+     * @param threadIdx Thread index.
+     * @param latency Latency, in nanoseconds.
+     * @param ops Number of operations with given latency.
+     */
+    private void record(int threadIdx, long latency, int ops) {
+        LatencyHistogram h = stripes[threadIdx % stripes.length];
+
+        if (shared)
+            h.recordConcurrent(latency, ops);
+        else
+            h.record(latency, ops);
     }
 
     /**
      * @param cfg Config.
-     * @return Interval.
+     * @return Number of significant digits.
      */
-    private static long interval(BenchmarkConfiguration cfg) {
+    static int significantDigits(BenchmarkConfiguration cfg) {
         try {
-            return Long.parseLong(cfg.customProperties().get(BUCKET_INTERVAL));
+            return Integer.parseInt(cfg.customProperties().get(SIGNIFICANT_DIGITS));
         }
         catch (NumberFormatException | NullPointerException ignored) {
-            return DEFAULT_BUCKET_INTERVAL;
+            return DEFAULT_SIGNIFICANT_DIGITS;
         }
     }
 
     /**
      * @param cfg Config.
-     * @return Interval.
+     * @return Highest trackable latency, in seconds.
      */
-    private static int count(BenchmarkConfiguration cfg) {
+    static long highestLatency(BenchmarkConfiguration cfg) {
         try {
-            return Integer.parseInt(cfg.customProperties().get(BUCKETS_CNT));
+            return Long.parseLong(cfg.customProperties().get(HIGHEST_LATENCY));
         }
         catch (NumberFormatException | NullPointerException ignored) {
-            return DEFAULT_BUCKETS_CNT;
+            return DEFAULT_HIGHEST_LATENCY;
         }
     }
 
     /**
      * @param cfg Config.
-     * @return Interval.
+     * @return Memory limit of histograms of a probe, in bytes.
      */
-    private static TimeUnit timeUnit(BenchmarkConfiguration cfg) {
+    static long histogramsMemory(BenchmarkConfiguration cfg) {
         try {
-            return TimeUnit.valueOf(cfg.customProperties().get(TIME_UNIT));
+            return Long.parseLong(cfg.customProperties().get(HISTOGRAMS_MEMORY)) * 1024 * 1024;
         }
-        catch (IllegalArgumentException | NullPointerException ignored) {
-            return DEFAULT_TIME_UNIT;
+        catch (NumberFormatException | NullPointerException ignored) {
+            return DEFAULT_HISTOGRAMS_MEMORY * 1024 * 1024;
         }
     }
 
     /**
+     * Gets number of histogram stripes that fit the memory limit of a probe. Stripes beyond the limit are
+     * dropped, so threads share histograms and record concurrently.
      *
+     * @param cfg Config.
+     * @param proto Histogram with the layout of stripes.
+     * @param perStripe Number of histograms per stripe, for example one per timer.
+     * @return Number of histogram stripes.
      */
-    private class ThreadAgent {
-        /** Last before execute timestamp. */
-        private long beforeTs;
-
-        /** */
-        private volatile long[] buckets = new long[bucketsCnt];
-
-        /**
-         *
-         */
-        public void beforeExecute() {
-            beforeTs = System.nanoTime();
-        }
-
-        /**
-         *
-         */
-        public void afterExecute() {
-            long latency = System.nanoTime() - beforeTs;
-
-            beforeTs = 0;
-
-            long bucketIdx = timeUnit.convert(latency, NANOSECONDS) / bucketInterval;
-
-            int bucketIdxInt = (int)bucketIdx;
+    static int histogramStripes(BenchmarkConfiguration cfg, LatencyHistogram proto, int perStripe) {
+        long fit = histogramsMemory(cfg) / (proto.footprint() * Math.max(1, perStripe));
 
-            if (bucketIdxInt >= buckets.length) {
-                long[] newArr = new long[(int)(bucketIdxInt * 1.2)];
-
-                System.arraycopy(buckets, 0, newArr, 0, buckets.length);
-
-                newArr[bucketIdxInt]++;
+        return (int)Math.max(1, Math.min(probeStripes(cfg), fit));
+    }
 
-                buckets = newArr;
-            }
-            else
-                buckets[bucketIdxInt]++;
+    /**
+     * @param cfg Config.
+     * @return Interval.
+     */
+    static TimeUnit timeUnit(BenchmarkConfiguration cfg) {
+        try {
+            return TimeUnit.valueOf(cfg.customProperties().get(TIME_UNIT));
         }
-
-        /**
-         * @return Resets the agent.
-         */
-        public long[] reset() {
-            long[] b = buckets;
-
-            buckets = new long[bucketsCnt];
-
-            return b;
+        catch (IllegalArgumentException | NullPointerException ignored) {
+            return DEFAULT_TIME_UNIT;
         }
     }
 }
@@ -0,0 +1,403 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbe;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports pressure stall information from {@code /proc/pressure/{cpu,io,memory}} and cgroup v2
+ * statistics of the driver process: CPU usage and throttling from {@code cpu.stat}, memory usage from
+ * {@code memory.current} and memory limit events from {@code memory.events}. Throttling and memory
+ * pressure of containers often explain throughput plateaus not visible in host statistics.
+ * <p>
+ * Stall time is reported in percent of the interval, events as number per interval. Cgroup of the process
+ * is found in {@code /proc/self/cgroup}, another one can be set with {@code BENCHMARK_PROBE_CGROUP_PATH}
+ * property, for example to watch the server container from the driver host. Sources that are not available,
+ * such as PSI of kernels before 4.20 or cgroup v1 hierarchies, are reported as zeros. Available on Linux only.
+ */
+public class PressureProbe implements BenchmarkProbe {
+    /** Directory of cgroup v2 to report. */
+    public static final String CGROUP_PATH = "BENCHMARK_PROBE_CGROUP_PATH";
+
+    /** Pressure resources, in order of columns. */
+    private static final String[] RESOURCES = {"cpu", "io", "memory"};
+
+    /** Counter of the first stall time, {@code some} and {@code full} per resource, in microseconds. */
+    private static final int STALL = 0;
+
+    /** Cgroup CPU usage, in microseconds. */
+    private static final int CG_USAGE = 6;
+
+    /** */
+    private static final int CG_PERIODS = 7;
+
+    /** */
+    private static final int CG_THROTTLED = 8;
+
+    /** Cgroup throttled time, in microseconds. */
+    private static final int CG_THROTTLED_TIME = 9;
+
+    /** */
+    private static final int CG_MEM_HIGH = 10;
+
+    /** */
+    private static final int CG_MEM_MAX = 11;
+
+    /** */
+    private static final int CG_OOM_KILL = 12;
+
+    /** */
+    private static final int COUNTERS = 13;
+
+    /** Pressure files by resource, {@code null} if not available. */
+    private final ProcFile[] pressure = new ProcFile[RESOURCES.length];
+
+    /** */
+    private ProcFile cpuStat;
+
+    /** */
+    private ProcFile memCurrent;
+
+    /** */
+    private ProcFile memEvents;
+
+    /** Counters at the current point, accessed by the building thread only. */
+    private long[] cur = new long[COUNTERS];
+
+    /** Counters at the previous point, accessed by the building thread only. */
+    private long[] prev = new long[COUNTERS];
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        List<String> srcs = new ArrayList<>();
+
+        for (int i = 0; i < RESOURCES.length; i++) {
+            pressure[i] = open("/proc/pressure/" + RESOURCES[i]);
+
+            if (pressure[i] != null)
+                srcs.add("/proc/pressure/" + RESOURCES[i]);
+        }
+
+        String cgroup = cgroupPath(cfg);
+
+        if (cgroup != null) {
+            cpuStat = open(cgroup + "/cpu.stat");
+            memCurrent = open(cgroup + "/memory.current");
+            memEvents = open(cgroup + "/memory.events");
+
+            if (cpuStat != null || memCurrent != null || memEvents != null)
+                srcs.add(cgroup);
+        }
+
+        if (srcs.isEmpty()) {
+            println(cfg, getClass().getSimpleName() + " is disabled (neither pressure stall information nor " +
+                "cgroup v2 statistics are available).");
+
+            return;
+        }
+
+        try {
+            read();
+        }
+        catch (IOException e) {
+            close();
+
+            errorHelp(cfg, "Can not read pressure stall or cgroup statistics.", e);
+
+            return;
+        }
+
+        long[] tmp = prev;
+
+        prev = cur;
+        cur = tmp;
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started [sources=" + srcs + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            close();
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Time, ms",
+            "CPU Pressure Some, %", "CPU Pressure Full, %", "IO Pressure Some, %", "IO Pressure Full, %",
+            "Memory Pressure Some, %", "Memory Pressure Full, %",
+            "Cgroup CPU Usage, processors", "Cgroup Throttled Periods, %", "Cgroup Throttled Time, %",
+            "Cgroup Memory, MB", "Cgroup Memory High Events", "Cgroup Memory Max Events", "Cgroup OOM Kills");
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                long mem;
+
+                try {
+                    mem = read();
+                }
+                catch (IOException e) {
+                    errorHelp(cfg, "Can not read pressure stall or cgroup statistics.", e);
+
+                    return;
+                }
+
+                long now = System.nanoTime();
+
+                // Interval in microseconds, the unit of kernel counters.
+                double elapsed = Math.max(1, now - lastTstamp) / 1000d;
+
+                lastTstamp = now;
+
+                double[] vals = new double[COUNTERS];
+
+                for (int i = STALL; i < CG_USAGE; i++)
+                    vals[i] = delta(i) * 100 / elapsed;
+
+                long periods = delta(CG_PERIODS);
+
+                vals[6] = delta(CG_USAGE) / elapsed;
+                vals[7] = periods == 0 ? 0 : delta(CG_THROTTLED) * 100d / periods;
+                vals[8] = delta(CG_THROTTLED_TIME) * 100 / elapsed;
+                vals[9] = mem / (1024d * 1024);
+                vals[10] = delta(CG_MEM_HIGH);
+                vals[11] = delta(CG_MEM_MAX);
+                vals[12] = delta(CG_OOM_KILL);
+
+                long[] tmp = prev;
+
+                prev = cur;
+                cur = tmp;
+
+                collectPoint(new BenchmarkProbePoint(time, vals));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /**
+     * @param idx Counter index.
+     * @return Counter increase since the previous point, never negative.
+     */
+    private long delta(int idx) {
+        return Math.max(0, cur[idx] - prev[idx]);
+    }
+
+    /**
+     * Reads current counters.
+     *
+     * @return Current cgroup memory usage, in bytes.
+     * @throws IOException If failed.
+     */
+    private long read() throws IOException {
+        for (int i = 0; i < RESOURCES.length; i++) {
+            ProcFile f = pressure[i];
+
+            if (f == null)
+                continue;
+
+            f.read();
+
+            // Lines: "some avg10=0.00 avg60=0.00 avg300=0.00 total=<usec>", the same for "full".
+            cur[STALL + i * 2] = f.find("some ") && f.skipTo("total=") ? f.nextLong() : 0;
+            cur[STALL + i * 2 + 1] = f.find("full ") && f.skipTo("total=") ? f.nextLong() : 0;
+        }
+
+        if (cpuStat != null) {
+            cpuStat.read();
+
+            cur[CG_USAGE] = value(cpuStat, "usage_usec ");
+            cur[CG_PERIODS] = value(cpuStat, "nr_periods ");
+            cur[CG_THROTTLED] = value(cpuStat, "nr_throttled ");
+            cur[CG_THROTTLED_TIME] = value(cpuStat, "throttled_usec ");
+        }
+
+        if (memEvents != null) {
+            memEvents.read();
+
+            cur[CG_MEM_HIGH] = value(memEvents, "high ");
+            cur[CG_MEM_MAX] = value(memEvents, "max ");
+            cur[CG_OOM_KILL] = value(memEvents, "oom_kill ");
+        }
+
+        return memCurrent != null ? Math.max(0, memCurrent.read().nextLong()) : 0;
+    }
+
+    /**
+     * @param f File.
+     * @param key Line key.
+     * @return Value of the line or {@code 0} if there is no such line.
+     */
+    private static long value(ProcFile f, String key) {
+        return f.find(key) ? Math.max(0, f.nextLong()) : 0;
+    }
+
+    /**
+     * @param path File path.
+     * @return Opened file or {@code null} if it is not available.
+     */
+    private static ProcFile open(String path) {
+        try {
+            return new File(path).canRead() ? new ProcFile(path) : null;
+        }
+        catch (IOException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * @param cfg Config.
+     * @return Directory of cgroup v2 to report or {@code null} if it is not found.
+     */
+    private static String cgroupPath(BenchmarkConfiguration cfg) {
+        String res = cfg.customProperties() == null ? null : cfg.customProperties().get(CGROUP_PATH);
+
+        if (res != null && !res.isEmpty())
+            return res;
+
+        try {
+            String cgroup = null;
+
+            // Unified hierarchy line is "0::<path>".
+            for (String line : Files.readAllLines(Paths.get("/proc/self/cgroup"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("0::"))
+                    cgroup = line.substring(3);
+            }
+
+            if (cgroup == null)
+                return null;
+
+            // Mount info line is "<id> <parent> <dev> <root> <mount point> <options> ... - cgroup2 ...".
+            for (String line : Files.readAllLines(Paths.get("/proc/self/mountinfo"), StandardCharsets.UTF_8)) {
+                if (line.contains(" - cgroup2 ")) {
+                    String[] fields = line.split(" ");
+
+                    return cgroupPath(cgroup, fields[3], fields[4]);
+                }
+            }
+        }
+        catch (IOException ignored) {
+            // No-op.
+        }
+
+        return null;
+    }
+
+    /**
+     * @param cgroup Path of the cgroup in the hierarchy.
+     * @param root Path in the hierarchy the file system is mounted at, for example a container cgroup.
+     * @param mnt Mount point.
+     * @return Cgroup directory or {@code null} if the cgroup is not visible under the mount point.
+     */
+    static String cgroupPath(String cgroup, String root, String mnt) {
+        // Cgroup outside of the namespace root is shown relative to it.
+        if (cgroup.startsWith("/.."))
+            return null;
+
+        if (!"/".equals(root)) {
+            if (cgroup.equals(root))
+                cgroup = "/";
+            else if (cgroup.startsWith(root + '/'))
+                cgroup = cgroup.substring(root.length());
+        }
+
+        return "/".equals(cgroup) ? mnt : mnt + cgroup;
+    }
+
+    /**
+     * Closes statistics files.
+     */
+    private void close() {
+        List<ProcFile> files = new ArrayList<>(Arrays.asList(pressure));
+
+        files.addAll(Arrays.asList(cpuStat, memCurrent, memEvents));
+
+        for (ProcFile f : files) {
+            if (f != null) {
+                try {
+                    f.close();
+                }
+                catch (IOException ignored) {
+                    // No-op.
+                }
+            }
+        }
+    }
+}
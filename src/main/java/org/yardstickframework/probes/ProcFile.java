@@ -0,0 +1,266 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Kernel statistics file, such as {@code /proc/stat}, that is kept open and re-read from the beginning
+ * into a reused buffer. Contents are parsed in place with a cursor, without creating strings or
+ * matching regular expressions, so that probes spend as little CPU of the measured host as possible.
+ * <p>
+ * Not thread safe.
+ */
+final class ProcFile implements Closeable {
+    /** */
+    private final RandomAccessFile file;
+
+    /** */
+    private final FileChannel ch;
+
+    /** Contents buffer, grows if the file does not fit. */
+    private ByteBuffer buf = ByteBuffer.allocate(8192);
+
+    /** Contents length. */
+    private int len;
+
+    /** Cursor position. */
+    private int pos;
+
+    /**
+     * @param path File path.
+     * @throws IOException If file can not be opened.
+     */
+    ProcFile(String path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+
+        ch = file.getChannel();
+    }
+
+    /**
+     * Reads current contents of the file and moves the cursor to the beginning.
+     *
+     * @return {@code This} for chaining.
+     * @throws IOException If failed.
+     */
+    ProcFile read() throws IOException {
+        while (true) {
+            // Buffer methods are not covariant on Java 8.
+            ((Buffer)buf).clear();
+
+            long p = 0;
+
+            for (int n; buf.hasRemaining() && (n = ch.read(buf, p)) > 0; )
+                p += n;
+
+            if (!buf.hasRemaining()) {
+                buf = ByteBuffer.allocate(buf.capacity() * 2);
+
+                continue;
+            }
+
+            len = buf.position();
+            pos = 0;
+
+            return this;
+        }
+    }
+
+    /**
+     * Moves the cursor after the first line prefix equal to the key.
+     *
+     * @param key Line prefix.
+     * @return {@code False} if there is no such line, the cursor is at the end then.
+     */
+    boolean find(String key) {
+        byte[] data = buf.array();
+
+        for (pos = 0; pos < len; ) {
+            if (startsWith(data, pos, key)) {
+                pos += key.length();
+
+                return true;
+            }
+
+            nextLine();
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the cursor to the beginning of the next line.
+     *
+     * @return {@code False} if there are no more lines.
+     */
+    boolean nextLine() {
+        byte[] data = buf.array();
+
+        while (pos < len && data[pos++] != '\n') {
+            // No-op.
+        }
+
+        return pos < len;
+    }
+
+    /**
+     * Parses next non-negative number of the current line, skipping any characters before it.
+     *
+     * @return Number or {@code -1} if there are no more numbers in the line.
+     */
+    long nextLong() {
+        byte[] data = buf.array();
+
+        while (pos < len && (data[pos] < '0' || data[pos] > '9')) {
+            if (data[pos] == '\n')
+                return -1;
+
+            pos++;
+        }
+
+        if (pos == len)
+            return -1;
+
+        long res = 0;
+
+        while (pos < len && data[pos] >= '0' && data[pos] <= '9')
+            res = res * 10 + data[pos++] - '0';
+
+        return res;
+    }
+
+    /**
+     * Moves the cursor after the next occurrence of the string in the current line, for example after
+     * {@code total=} of {@code /proc/pressure} lines.
+     *
+     * @param str String.
+     * @return {@code False} if there is no such string in the rest of the line, the cursor is at the line end then.
+     */
+    boolean skipTo(String str) {
+        byte[] data = buf.array();
+
+        for (; pos < len && data[pos] != '\n'; pos++) {
+            if (startsWith(data, pos, str)) {
+                pos += str.length();
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Skips next numbers of the current line.
+     *
+     * @param cnt Number of values to skip.
+     */
+    void skipLongs(int cnt) {
+        for (int i = 0; i < cnt; i++)
+            nextLong();
+    }
+
+    /**
+     * Moves the cursor after the next token of the current line. Tokens are separated by spaces and colons.
+     *
+     * @return Token length, {@code 0} if there are no more tokens in the line.
+     */
+    int nextToken() {
+        byte[] data = buf.array();
+
+        while (pos < len && (data[pos] == ' ' || data[pos] == '\t' || data[pos] == ':'))
+            pos++;
+
+        int start = pos;
+
+        while (pos < len && data[pos] != ' ' && data[pos] != '\t' && data[pos] != ':' && data[pos] != '\n')
+            pos++;
+
+        return pos - start;
+    }
+
+    /**
+     * Checks the token the cursor has just passed.
+     *
+     * @param tokenLen Token length returned by {@link #nextToken()}.
+     * @param names Names to compare with.
+     * @return {@code True} if the token is equal to one of the names.
+     */
+    boolean tokenIn(int tokenLen, String... names) {
+        byte[] data = buf.array();
+
+        for (String name : names) {
+            if (name.length() == tokenLen && startsWith(data, pos - tokenLen, name))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses number that ends the token the cursor has just passed, for example processor number of {@code cpu12}.
+     *
+     * @param tokenLen Token length returned by {@link #nextToken()}.
+     * @param prefix Expected token prefix.
+     * @return Number or {@code -1} if the token does not consist of the prefix and a number.
+     */
+    long tokenSuffix(int tokenLen, String prefix) {
+        byte[] data = buf.array();
+
+        int start = pos - tokenLen;
+
+        if (tokenLen <= prefix.length() || !startsWith(data, start, prefix))
+            return -1;
+
+        long res = 0;
+
+        for (int i = start + prefix.length(); i < pos; i++) {
+            if (data[i] < '0' || data[i] > '9')
+                return -1;
+
+            res = res * 10 + data[i] - '0';
+        }
+
+        return res;
+    }
+
+    /**
+     * @param data Data.
+     * @param off Offset.
+     * @param str ASCII string.
+     * @return {@code True} if the data contains the string at the offset.
+     */
+    private boolean startsWith(byte[] data, int off, String str) {
+        if (off + str.length() > len)
+            return false;
+
+        for (int i = 0; i < str.length(); i++) {
+            if (data[off + i] != str.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbe;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports the same host statistics as {@link DStatProbe} and {@link VmStatProbe}, but reads
+ * them directly from {@code /proc/stat}, {@code /proc/meminfo}, {@code /proc/vmstat}, {@code /proc/diskstats}
+ * and {@code /proc/net/dev} every probe point interval. No external tools are required and no process is
+ * forked. Files are kept open and parsed in reused buffers.
+ * <p>
+ * Disk statistics are summed over whole disks listed in {@code /sys/block}, except loop, RAM and device
+ * mapper devices, network statistics over all interfaces except loopback. Available on Linux only.
+ */
+public class ProcStatProbe implements BenchmarkProbe {
+    /** Sector size of {@code /proc/diskstats}, regardless of device. */
+    private static final int SECTOR_SIZE = 512;
+
+    /** Name prefixes of block devices that are not physical disks. */
+    private static final String[] VIRTUAL_DISKS = {"loop", "ram", "zram", "dm-", "md"};
+
+    /** Counter of user CPU time, including niced. */
+    private static final int CPU_USER = 0;
+
+    /** */
+    private static final int CPU_SYS = 1;
+
+    /** */
+    private static final int CPU_IDLE = 2;
+
+    /** */
+    private static final int CPU_WAIT = 3;
+
+    /** */
+    private static final int CPU_IRQ = 4;
+
+    /** */
+    private static final int CPU_SOFTIRQ = 5;
+
+    /** */
+    private static final int CPU_STEAL = 6;
+
+    /** */
+    private static final int INTR = 7;
+
+    /** */
+    private static final int CTXT = 8;
+
+    /** Counter of sectors read. */
+    private static final int DISK_READ = 9;
+
+    /** Counter of sectors written. */
+    private static final int DISK_WRITE = 10;
+
+    /** */
+    private static final int NET_RECV = 11;
+
+    /** */
+    private static final int NET_SEND = 12;
+
+    /** Counter of paged in kilobytes. */
+    private static final int PAGE_IN = 13;
+
+    /** */
+    private static final int PAGE_OUT = 14;
+
+    /** Counter of swapped in pages. */
+    private static final int SWAP_IN = 15;
+
+    /** */
+    private static final int SWAP_OUT = 16;
+
+    /** */
+    private static final int COUNTERS = 17;
+
+    /** */
+    private ProcFile stat;
+
+    /** */
+    private ProcFile meminfo;
+
+    /** */
+    private ProcFile vmstat;
+
+    /** */
+    private ProcFile diskstats;
+
+    /** */
+    private ProcFile netdev;
+
+    /** Names of disks to sum statistics of. */
+    private String[] disks;
+
+    /** Counters at the current point, accessed by the building thread only. */
+    private long[] cur = new long[COUNTERS];
+
+    /** Counters at the previous point, accessed by the building thread only. */
+    private long[] prev = new long[COUNTERS];
+
+    /** Point values, accessed by the building thread only. */
+    private final double[] gauges = new double[7];
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        try {
+            stat = new ProcFile("/proc/stat");
+            meminfo = new ProcFile("/proc/meminfo");
+            vmstat = new ProcFile("/proc/vmstat");
+            diskstats = new ProcFile("/proc/diskstats");
+            netdev = new ProcFile("/proc/net/dev");
+
+            disks = disks();
+
+            read();
+        }
+        catch (IOException e) {
+            close();
+
+            errorHelp(cfg, "Can not read kernel statistics from /proc (is it Linux?).", e);
+
+            return;
+        }
+
+        long[] tmp = prev;
+
+        prev = cur;
+        cur = tmp;
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started [disks=" + Arrays.toString(disks) + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            close();
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Time, ms", "Processes Running", "Processes Blocked",
+            "Memory Used, KB", "Memory Free, KB", "Memory Buffered, KB", "Memory Cached, KB", "Swap Used, KB",
+            "CPU User, %", "CPU System, %", "CPU Idle, %", "CPU Wait, %",
+            "CPU Hardware Interrupts, %", "CPU Software Interrupts, %", "CPU Steal, %",
+            "Disk Read, B/sec", "Disk Write, B/sec", "Network Receive, B/sec", "Network Send, B/sec",
+            "Page In, KB/sec", "Page Out, KB/sec", "Swap In, pages/sec", "Swap Out, pages/sec",
+            "System Interrupts, per sec", "System Context Switches, per sec");
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                try {
+                    read();
+                }
+                catch (IOException e) {
+                    errorHelp(cfg, "Can not read kernel statistics from /proc.", e);
+
+                    return;
+                }
+
+                long now = System.nanoTime();
+
+                double perSec = 1_000_000_000d / Math.max(1, now - lastTstamp);
+
+                lastTstamp = now;
+
+                long cpuTotal = 0;
+
+                for (int i = CPU_USER; i <= CPU_STEAL; i++)
+                    cpuTotal += delta(i);
+
+                double cpuPct = cpuTotal == 0 ? 0 : 100d / cpuTotal;
+
+                double[] vals = new double[] {
+                    gauges[0], gauges[1],
+                    gauges[2], gauges[3], gauges[4], gauges[5], gauges[6],
+                    delta(CPU_USER) * cpuPct, delta(CPU_SYS) * cpuPct, delta(CPU_IDLE) * cpuPct,
+                    delta(CPU_WAIT) * cpuPct, delta(CPU_IRQ) * cpuPct, delta(CPU_SOFTIRQ) * cpuPct,
+                    delta(CPU_STEAL) * cpuPct,
+                    delta(DISK_READ) * SECTOR_SIZE * perSec, delta(DISK_WRITE) * SECTOR_SIZE * perSec,
+                    delta(NET_RECV) * perSec, delta(NET_SEND) * perSec,
+                    delta(PAGE_IN) * perSec, delta(PAGE_OUT) * perSec,
+                    delta(SWAP_IN) * perSec, delta(SWAP_OUT) * perSec,
+                    delta(INTR) * perSec, delta(CTXT) * perSec};
+
+                long[] tmp = prev;
+
+                prev = cur;
+                cur = tmp;
+
+                collectPoint(new BenchmarkProbePoint(time, vals));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /**
+     * @param idx Counter index.
+     * @return Counter increase since the previous point, never negative.
+     */
+    private long delta(int idx) {
+        return Math.max(0, cur[idx] - prev[idx]);
+    }
+
+    /**
+     * Reads current counters and gauges.
+     *
+     * @throws IOException If failed.
+     */
+    private void read() throws IOException {
+        // Fields: user nice system idle iowait irq softirq steal.
+        if (stat.read().find("cpu ")) {
+            cur[CPU_USER] = stat.nextLong() + stat.nextLong();
+            cur[CPU_SYS] = stat.nextLong();
+            cur[CPU_IDLE] = stat.nextLong();
+            cur[CPU_WAIT] = stat.nextLong();
+            cur[CPU_IRQ] = stat.nextLong();
+            cur[CPU_SOFTIRQ] = stat.nextLong();
+            cur[CPU_STEAL] = Math.max(0, stat.nextLong());
+        }
+
+        cur[INTR] = stat.find("intr ") ? stat.nextLong() : 0;
+        cur[CTXT] = stat.find("ctxt ") ? stat.nextLong() : 0;
+
+        gauges[0] = stat.find("procs_running ") ? stat.nextLong() : 0;
+        gauges[1] = stat.find("procs_blocked ") ? stat.nextLong() : 0;
+
+        meminfo.read();
+
+        long total = memValue("MemTotal:");
+        long free = memValue("MemFree:");
+        long buffers = memValue("Buffers:");
+        long cached = memValue("Cached:") + memValue("SReclaimable:");
+
+        gauges[2] = Math.max(0, total - free - buffers - cached);
+        gauges[3] = free;
+        gauges[4] = buffers;
+        gauges[5] = cached;
+        gauges[6] = Math.max(0, memValue("SwapTotal:") - memValue("SwapFree:"));
+
+        vmstat.read();
+
+        cur[PAGE_IN] = vmstat.find("pgpgin ") ? vmstat.nextLong() : 0;
+        cur[PAGE_OUT] = vmstat.find("pgpgout ") ? vmstat.nextLong() : 0;
+        cur[SWAP_IN] = vmstat.find("pswpin ") ? vmstat.nextLong() : 0;
+        cur[SWAP_OUT] = vmstat.find("pswpout ") ? vmstat.nextLong() : 0;
+
+        cur[DISK_READ] = 0;
+        cur[DISK_WRITE] = 0;
+
+        diskstats.read();
+
+        // Fields: major minor name reads merged sectors-read ms writes merged sectors-written ...
+        do {
+            diskstats.skipLongs(2);
+
+            if (diskstats.tokenIn(diskstats.nextToken(), disks)) {
+                diskstats.skipLongs(2);
+
+                cur[DISK_READ] += diskstats.nextLong();
+
+                diskstats.skipLongs(3);
+
+                cur[DISK_WRITE] += diskstats.nextLong();
+            }
+        }
+        while (diskstats.nextLine());
+
+        cur[NET_RECV] = 0;
+        cur[NET_SEND] = 0;
+
+        // Two header lines, then: name: rx-bytes packets errs drop fifo frame compressed multicast tx-bytes ...
+        netdev.read();
+
+        if (netdev.nextLine() && netdev.nextLine()) {
+            do {
+                int len = netdev.nextToken();
+
+                if (len == 0 || netdev.tokenIn(len, "lo"))
+                    continue;
+
+                cur[NET_RECV] += netdev.nextLong();
+
+                netdev.skipLongs(7);
+
+                cur[NET_SEND] += netdev.nextLong();
+            }
+            while (netdev.nextLine());
+        }
+    }
+
+    /**
+     * @param key Key of {@code /proc/meminfo} line, including colon.
+     * @return Value in kilobytes or {@code 0} if there is no such line.
+     */
+    private long memValue(String key) {
+        return meminfo.find(key) ? Math.max(0, meminfo.nextLong()) : 0;
+    }
+
+    /**
+     * @return Names of physical disks.
+     */
+    private static String[] disks() {
+        List<String> res = new ArrayList<>();
+
+        String[] names = new File("/sys/block").list();
+
+        if (names != null) {
+            outer:
+            for (String name : names) {
+                for (String prefix : VIRTUAL_DISKS) {
+                    if (name.startsWith(prefix))
+                        continue outer;
+                }
+
+                // Slashes of device names are replaced in sysfs.
+                res.add(name.replace('!', '/'));
+            }
+        }
+
+        return res.toArray(new String[res.size()]);
+    }
+
+    /**
+     * Closes statistics files.
+     */
+    private void close() {
+        for (ProcFile f : Arrays.asList(stat, meminfo, vmstat, diskstats, netdev)) {
+            if (f != null) {
+                try {
+                    f.close();
+                }
+                catch (IOException ignored) {
+                    // No-op.
+                }
+            }
+        }
+    }
+}
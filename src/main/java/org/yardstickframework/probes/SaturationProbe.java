@@ -0,0 +1,379 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimingProbe;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that assesses whether the driver rather than the server limited throughput. Every probe point
+ * interval it reports worker CPU share and run queue wait (see {@link SchedStatProbe}), share of time the
+ * driver JVM spent in GC pauses and estimated share of worker time spent reading the clock for timed
+ * samples, and classifies the interval:
+ * <ul>
+ *     <li>{@code driver-bound} if workers waited for CPU, the JVM collected garbage or timing overhead was
+ *     noticeable, so results describe the driver. Workers busy on CPU almost all the time are not enough
+ *     alone, since CPU-bound closed-loop benchmarks always are, but lower levels of the above are;</li>
+ *     <li>{@code server-bound} if none of that happened and workers mostly waited for the server;</li>
+ *     <li>{@code inconclusive} otherwise.</li>
+ * </ul>
+ * The last column is the verdict of the run so far, intervals of the warmup are not accounted. Run is
+ * {@code driver-bound} if at least 10% of intervals were, {@code server-bound} if at least 80% of intervals
+ * were. The verdict of the run is printed when the probe stops and shown on the JFreeChart result page.
+ * <p>
+ * Timing overhead, worker CPU share and run queue wait are accounted over workers that timed samples of the
+ * driver, so every thread group ({@code -dn A@8 B@24}) is assessed with its own threads. GC pauses stop all
+ * threads and are accounted for every group. Worker CPU share and run queue wait are available on Linux only
+ * and not in virtual threads mode, intervals without them are never {@code server-bound}.
+ */
+public class SaturationProbe implements BenchmarkTimingProbe {
+    /** Verdict code of the results limited by the driver. */
+    public static final int DRIVER_BOUND = 1;
+
+    /** Verdict code of the results limited by the server. */
+    public static final int SERVER_BOUND = -1;
+
+    /** Verdict code of the results that can not be classified. */
+    public static final int INCONCLUSIVE = 0;
+
+    /** Run queue wait of workers that makes the interval driver-bound, in percent. */
+    private static final double DRIVER_WAIT = 10;
+
+    /** GC pauses time that makes the interval driver-bound, in percent. */
+    private static final double DRIVER_GC = 10;
+
+    /** Timing overhead that makes the interval driver-bound, in percent. */
+    private static final double DRIVER_OVERHEAD = 5;
+
+    /** Worker CPU share that makes the interval driver-bound if any server-bound limit is exceeded, in percent. */
+    private static final double DRIVER_RUNNING = 90;
+
+    /** Run queue wait of workers below which the interval can be server-bound, in percent. */
+    private static final double SERVER_WAIT = 2;
+
+    /** GC pauses time below which the interval can be server-bound, in percent. */
+    private static final double SERVER_GC = 2;
+
+    /** Timing overhead below which the interval can be server-bound, in percent. */
+    private static final double SERVER_OVERHEAD = 1;
+
+    /** Worker CPU share below which the interval can be server-bound, in percent. */
+    private static final double SERVER_RUNNING = 50;
+
+    /** Share of driver-bound intervals that makes the run driver-bound. */
+    private static final double RUN_DRIVER_SHARE = 0.1;
+
+    /** Share of server-bound intervals that makes the run server-bound. */
+    private static final double RUN_SERVER_SHARE = 0.8;
+
+    /** Cell length in longs, two cache lines to also defeat adjacent line prefetch. */
+    private static final int CELL_LEN = 16;
+
+    /** Scheduler counter increases, accessed by the building thread only. */
+    private final long[] cntrs = new long[WorkerTasks.COUNTERS];
+
+    /** Collectors that pause the application. */
+    private final List<GarbageCollectorMXBean> gcs = new ArrayList<>();
+
+    /** Number of intervals since the warmup, by verdict code. */
+    private final int[] intervals = new int[3];
+
+    /** Padded cumulative timed samples cells, one per thread. */
+    private AtomicLongArray cells;
+
+    /** Timed samples per thread at the previous point, accessed by the building thread only. */
+    private long[] lastSamples;
+
+    /** Threads that timed samples of the driver, accessed by the building thread only. */
+    private boolean[] timingThreads;
+
+    /** Collection time at the previous point, in milliseconds, accessed by the building thread only. */
+    private long lastGcTime;
+
+    /** Worker threads statistics, {@code null} if not available, accessed by the building thread only. */
+    private WorkerTasks workers;
+
+    /** Cost of a clock read, in nanoseconds. */
+    private double clockCost;
+
+    /** Whether warmup is finished. */
+    private boolean warmupFinished;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /**
+     * @param code Verdict code.
+     * @return Verdict name.
+     */
+    public static String verdict(int code) {
+        return code == DRIVER_BOUND ? "driver-bound" : code == SERVER_BOUND ? "server-bound" : "inconclusive";
+    }
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // Times of concurrent collectors are cycle times rather than pauses.
+            if (!gc.getName().contains("Cycles") && !gc.getName().contains("Concurrent"))
+                gcs.add(gc);
+        }
+
+        if (!cfg.virtualThreads() && WorkerTasks.available())
+            workers = new WorkerTasks();
+
+        clockCost = clockCost();
+
+        int threads = cfg.threads();
+
+        // Leading and trailing cells are padding.
+        cells = new AtomicLongArray((threads + 2) * CELL_LEN);
+
+        lastSamples = new long[threads];
+        timingThreads = new boolean[threads];
+
+        lastGcTime = gcTime();
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started [schedStat=" + (workers != null) +
+            ", clockCost=" + String.format("%.1f", clockCost) + "ns]");
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            if (workers != null)
+                workers.close();
+
+            synchronized (this) {
+                println(cfg, "Load generator verdict: " + verdict(runVerdict()) + " [driverBound=" +
+                    intervals[DRIVER_BOUND + 1] + ", serverBound=" + intervals[SERVER_BOUND + 1] +
+                    ", inconclusive=" + intervals[INCONCLUSIVE + 1] + " intervals]");
+            }
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Time, ms", "Worker Running, %", "Worker Run Queue Wait, %", "GC Pauses, %",
+            "Timing Overhead, %", "Interval Verdict (1 driver-bound, -1 server-bound, 0 inconclusive)",
+            "Run Verdict (1 driver-bound, -1 server-bound, 0 inconclusive)");
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        // The first call discards points of the warmup.
+        if (!warmupFinished) {
+            warmupFinished = true;
+
+            Arrays.fill(intervals, 0);
+        }
+
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops) {
+        int cell = (threadIdx + 1) * CELL_LEN;
+
+        // Single writer per cell.
+        cells.lazySet(cell, cells.get(cell) + 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExecuted(int threadIdx, int ops) {
+        // No-op: untimed samples do not read the clock.
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                long samples = 0;
+
+                // With thread groups, only threads of this driver time samples.
+                int timing = 0;
+
+                for (int i = 0; i < lastSamples.length; i++) {
+                    long s = cells.get((i + 1) * CELL_LEN);
+
+                    samples += s - lastSamples[i];
+
+                    lastSamples[i] = s;
+
+                    if (s > 0) {
+                        timingThreads[i] = true;
+
+                        timing++;
+                    }
+                }
+
+                int cnt = workers != null ? workers.read(cntrs, timingThreads) : 0;
+
+                long gcTime = gcTime();
+
+                long now = System.nanoTime();
+
+                long elapsed = Math.max(1, now - lastTstamp);
+
+                lastTstamp = now;
+
+                double running = cnt == 0 ? 0 : cntrs[WorkerTasks.RUNNING] * 100d / elapsed / cnt;
+                double wait = cnt == 0 ? 0 : cntrs[WorkerTasks.WAIT] * 100d / elapsed / cnt;
+                double gc = Math.max(0, gcTime - lastGcTime) * 100_000_000d / elapsed;
+
+                lastGcTime = gcTime;
+
+                // Two clock reads per timed sample.
+                double overhead = timing == 0 ? 0 : samples * 2 * clockCost * 100 / elapsed / timing;
+
+                int verdict = verdict(cnt > 0, running, wait, gc, overhead);
+
+                collectPoint(time, new double[] {running, wait, gc, overhead, verdict, 0}, verdict);
+            }
+        });
+    }
+
+    /**
+     * @param schedStat Whether worker CPU share and run queue wait are known.
+     * @param running Worker CPU share, in percent.
+     * @param wait Run queue wait of workers, in percent.
+     * @param gc GC pauses time, in percent.
+     * @param overhead Timing overhead, in percent.
+     * @return Verdict code of the interval.
+     */
+    static int verdict(boolean schedStat, double running, double wait, double gc, double overhead) {
+        if (wait >= DRIVER_WAIT || gc >= DRIVER_GC || overhead >= DRIVER_OVERHEAD)
+            return DRIVER_BOUND;
+
+        boolean noise = wait < SERVER_WAIT && gc < SERVER_GC && overhead < SERVER_OVERHEAD;
+
+        // Busy workers alone are normal for CPU-bound operations.
+        if (running >= DRIVER_RUNNING)
+            return noise ? INCONCLUSIVE : DRIVER_BOUND;
+
+        if (schedStat && noise && running < SERVER_RUNNING)
+            return SERVER_BOUND;
+
+        return INCONCLUSIVE;
+    }
+
+    /**
+     * @param time Point time.
+     * @param vals Values, the last one is set to the verdict of the run.
+     * @param verdict Verdict code of the interval.
+     */
+    private synchronized void collectPoint(long time, double[] vals, int verdict) {
+        intervals[verdict + 1]++;
+
+        vals[vals.length - 1] = runVerdict();
+
+        collected.add(new BenchmarkProbePoint(time, vals));
+    }
+
+    /**
+     * @return Verdict code of the run so far.
+     */
+    private int runVerdict() {
+        double total = intervals[0] + intervals[1] + intervals[2];
+
+        if (total == 0)
+            return INCONCLUSIVE;
+
+        if (intervals[DRIVER_BOUND + 1] >= total * RUN_DRIVER_SHARE)
+            return DRIVER_BOUND;
+
+        if (intervals[SERVER_BOUND + 1] >= total * RUN_SERVER_SHARE)
+            return SERVER_BOUND;
+
+        return INCONCLUSIVE;
+    }
+
+    /**
+     * @return Total time of GC pauses, in milliseconds.
+     */
+    private long gcTime() {
+        long res = 0;
+
+        for (GarbageCollectorMXBean gc : gcs)
+            res += Math.max(0, gc.getCollectionTime());
+
+        return res;
+    }
+
+    /**
+     * @return Cost of a clock read, in nanoseconds, the best of several measurements.
+     */
+    private static double clockCost() {
+        int reads = 100_000;
+
+        double res = Double.MAX_VALUE;
+
+        long sink = 0;
+
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+
+            for (int j = 0; j < reads; j++)
+                sink += System.nanoTime();
+
+            res = Math.min(res, (System.nanoTime() - start) / (double)reads);
+        }
+
+        // Keeps the loop from being eliminated.
+        return sink == 0 ? res + 1 : res;
+    }
+}
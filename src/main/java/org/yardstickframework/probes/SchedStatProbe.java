@@ -0,0 +1,150 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbe;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports scheduling of benchmark worker threads by the kernel, read from
+ * {@code /proc/self/task/<tid>/schedstat} and {@code status} every probe point interval: time workers
+ * spent running and waiting in run queues, and their voluntary and involuntary context switches.
+ * <p>
+ * Noticeable run queue wait means that the driver host did not have enough CPU for the workers, so the
+ * driver rather than the server limited throughput. Time is reported in percent of the interval per worker,
+ * both average and maximum over workers.
+ * <p>
+ * Worker threads register their kernel thread IDs on start, so all platform workers of the driver JVM are
+ * accounted. Probe is disabled in virtual threads mode, since workers do not have kernel threads of their
+ * own. Available on Linux 3.17 or later only.
+ */
+public class SchedStatProbe implements BenchmarkProbe {
+    /** Counter increases, accessed by the building thread only. */
+    private final long[] cntrs = new long[WorkerTasks.COUNTERS];
+
+    /** Worker threads statistics, accessed by the building thread only. */
+    private WorkerTasks workers;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        if (cfg.virtualThreads()) {
+            println(cfg, getClass().getSimpleName() + " is disabled (benchmark workers are virtual threads).");
+
+            return;
+        }
+
+        if (!WorkerTasks.available()) {
+            println(cfg, getClass().getSimpleName() + " is disabled (kernel thread IDs or thread scheduler " +
+                "statistics are not available, is it Linux?).");
+
+            return;
+        }
+
+        workers = new WorkerTasks();
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started.");
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            workers.close();
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Time, ms", "Workers", "Worker Running, %", "Worker Run Queue Wait, %",
+            "Max Worker Run Queue Wait, %", "Voluntary Context Switches, per sec",
+            "Involuntary Context Switches, per sec");
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                int cnt = workers.read(cntrs, null);
+
+                long now = System.nanoTime();
+
+                long elapsed = Math.max(1, now - lastTstamp);
+
+                lastTstamp = now;
+
+                double pct = cnt == 0 ? 0 : 100d / elapsed / cnt;
+                double perSec = 1_000_000_000d / elapsed;
+
+                collectPoint(new BenchmarkProbePoint(time, new double[] {
+                    cnt, cntrs[WorkerTasks.RUNNING] * pct, cntrs[WorkerTasks.WAIT] * pct,
+                    cntrs[WorkerTasks.MAX_WAIT] * 100d / elapsed, cntrs[WorkerTasks.VOL] * perSec,
+                    cntrs[WorkerTasks.INVOL] * perSec}));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimer;
+import org.yardstickframework.BenchmarkTimerProbe;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports throughput, average and p99 latency of every sub-operation recorded with
+ * {@link BenchmarkTimer}s of the driver, three columns per timer.
+ * <p>
+ * Every timer has a latency histogram and a cell with total latency and count per thread, striped in virtual
+ * threads mode. Both are cumulative, the building thread reports difference from the previous point. Throughput
+ * and average latency are taken from cells and p99 latency from histograms. Histograms are
+ * configured by the same properties as {@link PercentileProbe}, the memory limit applies to histograms of
+ * all timers together.
+ */
+public class SubOperationProbe implements BenchmarkTimerProbe {
+    /** Cell length in longs, two cache lines to also defeat adjacent line prefetch. */
+    private static final int CELL_LEN = 16;
+
+    /** Offset of total latency in a cell. */
+    private static final int TOTAL_LATENCY = 0;
+
+    /** Offset of timed operations count in a cell. */
+    private static final int CNT = 1;
+
+    /** Reported percentile. */
+    private static final double PERCENTILE = 99;
+
+    /** Timers of the driver. */
+    private List<BenchmarkTimer> timers = Collections.emptyList();
+
+    /** Histograms by timer and stripe. */
+    private LatencyHistogram[][] hists;
+
+    /** Padded cumulative counters cells by timer and stripe. */
+    private AtomicLongArray totals;
+
+    /** Number of stripes. */
+    private int stripesCnt;
+
+    /** Whether stripes are updated by several threads. */
+    private boolean shared;
+
+    /** Sum of stripe histograms per timer at the previous point, accessed by the building thread only. */
+    private LatencyHistogram[] last;
+
+    /** Total latency per timer at the previous point, accessed by the building thread only. */
+    private long[] lastTotal;
+
+    /** Timed operations count per timer at the previous point, accessed by the building thread only. */
+    private long[] lastCnt;
+
+    /** Sum of stripe histograms, accessed by the building thread only. */
+    private LatencyHistogram cur;
+
+    /** Distribution of the current interval, accessed by the building thread only. */
+    private LatencyHistogram interval;
+
+    /** Collected points. */
+    private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
+
+    /** Service building probe points. */
+    private ExecutorService buildingService;
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** */
+    private TimeUnit timeUnit;
+
+    /** Last point time stamp, in {@link System#nanoTime()} units, accessed by the building thread only. */
+    private long lastTstamp;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        timers = BenchmarkTimer.timers(drv);
+
+        if (timers.isEmpty()) {
+            println(cfg, getClass().getSimpleName() + " is disabled (driver has no sub-operation timers).");
+
+            return;
+        }
+
+        timeUnit = PercentileProbe.timeUnit(cfg);
+
+        LatencyHistogram proto = new LatencyHistogram(SECONDS.toNanos(PercentileProbe.highestLatency(cfg)),
+            PercentileProbe.significantDigits(cfg));
+
+        stripesCnt = PercentileProbe.histogramStripes(cfg, proto, timers.size());
+
+        shared = stripesCnt < cfg.threads();
+
+        hists = new LatencyHistogram[timers.size()][stripesCnt];
+        last = new LatencyHistogram[timers.size()];
+
+        for (int i = 0; i < timers.size(); i++) {
+            last[i] = proto.newEmpty();
+
+            for (int j = 0; j < stripesCnt; j++)
+                hists[i][j] = proto.newEmpty();
+        }
+
+        cur = proto.newEmpty();
+        interval = proto;
+
+        // Leading and trailing cells are padding.
+        totals = new AtomicLongArray((timers.size() * stripesCnt + 2) * CELL_LEN);
+
+        lastTotal = new long[timers.size()];
+        lastCnt = new long[timers.size()];
+
+        lastTstamp = System.nanoTime();
+
+        buildingService = Executors.newSingleThreadExecutor();
+
+        println(cfg, getClass().getSimpleName() + " is started [timers=" + timers + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (buildingService != null) {
+            buildingService.shutdownNow();
+
+            buildingService.awaitTermination(1, MINUTES);
+
+            println(cfg, getClass().getSimpleName() + " is stopped.");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        String unit = timeUnit != null ? timeUnit.name().toLowerCase() : "n/a";
+
+        List<String> res = new ArrayList<>(timers.size() * 3 + 1);
+
+        res.add("Time, ms");
+
+        for (BenchmarkTimer t : timers) {
+            res.add(t.name() + " operations/sec (more is better)");
+            res.add(t.name() + " latency, " + unit + " (less is better)");
+            res.add(t.name() + " latency p99, " + unit + " (less is better)");
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        Collection<BenchmarkProbePoint> ret = collected;
+
+        collected = new ArrayList<>(ret.size() + 5);
+
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(final long time) {
+        if (buildingService == null)
+            return;
+
+        buildingService.execute(new Runnable() {
+            @Override public void run() {
+                long now = System.nanoTime();
+
+                long elapsed = Math.max(1, now - lastTstamp);
+
+                lastTstamp = now;
+
+                double[] vals = new double[timers.size() * 3];
+
+                for (int i = 0; i < timers.size(); i++) {
+                    long cnt = 0;
+                    long total = 0;
+
+                    // Counts are written last, so they are read first to never see latency lagging behind them.
+                    for (int j = 0; j < stripesCnt; j++) {
+                        int base = cell(i, j);
+
+                        cnt += totals.get(base + CNT);
+                        total += totals.get(base + TOTAL_LATENCY);
+                    }
+
+                    cur.reset();
+
+                    for (LatencyHistogram h : hists[i])
+                        cur.add(h);
+
+                    interval.reset();
+
+                    interval.add(cur);
+                    interval.subtract(last[i]);
+
+                    LatencyHistogram tmp = last[i];
+
+                    last[i] = cur;
+                    cur = tmp;
+
+                    long intervalCnt = cnt - lastCnt[i];
+
+                    vals[i * 3] = intervalCnt * 1_000_000_000d / elapsed;
+                    vals[i * 3 + 1] = intervalCnt == 0 ? 0 : toUnit((double)(total - lastTotal[i]) / intervalCnt);
+                    vals[i * 3 + 2] = toUnit(interval.valueAtPercentile(PERCENTILE));
+
+                    lastCnt[i] = cnt;
+                    lastTotal[i] = total;
+                }
+
+                collectPoint(new BenchmarkProbePoint(time, vals));
+            }
+        });
+    }
+
+    /**
+     * @param pnt Probe point.
+     */
+    private synchronized void collectPoint(BenchmarkProbePoint pnt) {
+        collected.add(pnt);
+    }
+
+    /**
+     * @param nanos Value in nanoseconds.
+     * @return Value in configured time unit.
+     */
+    private double toUnit(double nanos) {
+        return nanos / timeUnit.toNanos(1);
+    }
+
+    /**
+     * @param timerIdx Timer index.
+     * @param stripe Stripe index.
+     * @return Index of the first counter of the cell.
+     */
+    private int cell(int timerIdx, int stripe) {
+        return (timerIdx * stripesCnt + stripe + 1) * CELL_LEN;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onTimed(int threadIdx, BenchmarkTimer timer, long startNanos, long endNanos) {
+        int stripe = threadIdx % stripesCnt;
+
+        LatencyHistogram h = hists[timer.index()][stripe];
+
+        int idx = cell(timer.index(), stripe);
+
+        long latency = endNanos - startNanos;
+
+        if (shared) {
+            h.recordConcurrent(latency, 1);
+
+            totals.getAndAdd(idx + TOTAL_LATENCY, latency);
+            totals.getAndAdd(idx + CNT, 1);
+        }
+        else {
+            h.record(latency, 1);
+
+            // Single writer, ordered stores are enough to publish to the building thread.
+            totals.lazySet(idx + TOTAL_LATENCY, totals.get(idx + TOTAL_LATENCY) + latency);
+            totals.lazySet(idx + CNT, totals.get(idx + CNT) + 1);
+        }
+    }
+}
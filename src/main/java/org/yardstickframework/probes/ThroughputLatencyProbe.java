@@ -19,22 +19,62 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import org.yardstickframework.BenchmarkConfiguration;
 import org.yardstickframework.BenchmarkDriver;
-import org.yardstickframework.BenchmarkExecutionAwareProbe;
 import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTimingProbe;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 import static org.yardstickframework.BenchmarkUtils.println;
+import static org.yardstickframework.BenchmarkUtils.probeStripes;
 
 /**
  * Probe that calculates throughput and average latency.
+ * <p>
+ * Every worker thread owns a counters cell padded to its own cache lines, so workers never contend
+ * with each other or with the point building thread. Cells are cumulative and published with ordered
+ * writes, the building thread reads them without locking and reports difference from the previous
+ * point. In virtual threads mode cells are striped and shared, then updates are atomic additions.
+ * <p>
+ * In latency sampling mode throughput accounts for all operations, while average latency is calculated
+ * over timed ones only. Rate of timed operations is then reported in an additional column, so that
+ * the number of samples behind every latency point is known.
  */
-public class ThroughputLatencyProbe implements BenchmarkExecutionAwareProbe {
-    /** Operations executed. */
-    private ThreadAgent[] agents;
+public class ThroughputLatencyProbe implements BenchmarkTimingProbe {
+    /** Cell length in longs, two cache lines to also defeat adjacent line prefetch. */
+    private static final int CELL_LEN = 16;
+
+    /** Offset of execution count in a cell. */
+    private static final int EXEC_CNT = 0;
+
+    /** Offset of total latency in a cell. */
+    private static final int TOTAL_LATENCY = 1;
+
+    /** Offset of timed operations count in a cell. */
+    private static final int SAMPLE_CNT = 2;
+
+    /** Padded cumulative counters cells, one per thread or striped in virtual threads mode. */
+    private AtomicLongArray cells;
+
+    /** Whether only some operations are timed. */
+    private boolean sampling;
+
+    /** Number of cells. */
+    private int cellsCnt;
+
+    /** Whether cells are updated by several threads. */
+    private boolean shared;
+
+    /** Execution count per cell at the previous point, accessed by the building thread only. */
+    private long[] lastExecCnt;
+
+    /** Total latency per cell at the previous point, accessed by the building thread only. */
+    private long[] lastTotalLatency;
+
+    /** Timed operations count per cell at the previous point, accessed by the building thread only. */
+    private long[] lastSampleCnt;
 
     /** Collected points. */
     private Collection<BenchmarkProbePoint> collected = new ArrayList<>();
@@ -45,7 +85,7 @@ public class ThroughputLatencyProbe implements BenchmarkExecutionAwareProbe {
     /** */
     private BenchmarkConfiguration cfg;
 
-    /** Last data collection time stamp. */
+    /** Last data collection time stamp, in {@link System#nanoTime()} units. */
     private volatile long lastTstamp;
 
     /** {@inheritDoc} */
@@ -53,16 +93,24 @@ public class ThroughputLatencyProbe implements BenchmarkExecutionAwareProbe {
     @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
         this.cfg = cfg;
 
-        agents = new ThreadAgent[cfg.threads()];
+        cellsCnt = probeStripes(cfg);
+
+        shared = cellsCnt < cfg.threads();
+
+        sampling = cfg.latencySampling() > 1;
 
-        for (int i = 0; i < agents.length; i++)
-            agents[i] = new ThreadAgent();
+        // Leading and trailing cells are padding.
+        cells = new AtomicLongArray((cellsCnt + 2) * CELL_LEN);
+
+        lastExecCnt = new long[cellsCnt];
+        lastTotalLatency = new long[cellsCnt];
+        lastSampleCnt = new long[cellsCnt];
 
         buildingService = Executors.newSingleThreadExecutor();
 
         println(cfg, getClass().getSimpleName() + " is started.");
 
-        lastTstamp = System.currentTimeMillis();
+        lastTstamp = System.nanoTime();
     }
 
     /** {@inheritDoc} */
@@ -78,7 +126,13 @@ public class ThroughputLatencyProbe implements BenchmarkExecutionAwareProbe {
 
     /** {@inheritDoc} */
     @Override public Collection<String> metaInfo() {
-        return Arrays.asList("Time, sec", "Operations/sec (more is better)", "Latency, nsec (less is better)");
+        if (!sampling) {
+            return Arrays.asList("Time, ms", "Operations/sec (more is better)",
+                "Latency, nsec (less is better)");
+        }
+
+        return Arrays.asList("Time, ms", "Operations/sec (more is better)",
+            "Latency, nsec (less is better" + samplingInfo(cfg) + ")", "Timed Operations/sec");
     }
 
     /** {@inheritDoc} */
@@ -96,23 +150,41 @@ public class ThroughputLatencyProbe implements BenchmarkExecutionAwareProbe {
             @Override public void run() {
                 long lastTstamp0 = lastTstamp;
 
-                long lastTstamp1 = System.currentTimeMillis();
+                long lastTstamp1 = System.nanoTime();
 
                 lastTstamp = lastTstamp1;
 
-                // Time delta in seconds, rounding is used because Thread.sleep(1000) can last less than a second.
-                long delta = (long)Math.floor((lastTstamp1 - lastTstamp0) / 1000d + 0.5);
+                // Measured interval, so that throughput is correct for any point interval.
+                long delta = Math.max(1, lastTstamp1 - lastTstamp0);
 
-                ThreadAgent collector = new ThreadAgent();
+                long execCnt = 0;
+                long totalLatency = 0;
+                long sampleCnt = 0;
 
-                for (ThreadAgent agent : agents)
-                    agent.collect(collector);
+                for (int i = 0; i < cellsCnt; i++) {
+                    int base = (i + 1) * CELL_LEN;
 
-                double latency = collector.execCnt == 0 ? 0 : (double)collector.totalLatency / collector.execCnt;
+                    // Counts are written last, so they are read first to never see latency lagging behind them.
+                    long cnt = cells.get(base + EXEC_CNT);
+                    long samples = cells.get(base + SAMPLE_CNT);
+                    long lat = cells.get(base + TOTAL_LATENCY);
 
-                BenchmarkProbePoint pnt = new BenchmarkProbePoint(
-                    TimeUnit.MILLISECONDS.toSeconds(time),
-                    new double[] { delta == 0 ? Double.NaN : (double)collector.execCnt / delta, latency});
+                    execCnt += cnt - lastExecCnt[i];
+                    sampleCnt += samples - lastSampleCnt[i];
+                    totalLatency += lat - lastTotalLatency[i];
+
+                    lastExecCnt[i] = cnt;
+                    lastSampleCnt[i] = samples;
+                    lastTotalLatency[i] = lat;
+                }
+
+                double latency = sampleCnt == 0 ? 0 : (double)totalLatency / sampleCnt;
+
+                double throughput = execCnt * 1_000_000_000d / delta;
+
+                BenchmarkProbePoint pnt = new BenchmarkProbePoint(time, sampling ?
+                    new double[] {throughput, latency, sampleCnt * 1_000_000_000d / delta} :
+                    new double[] {throughput, latency});
 
                 collectPoint(pnt);
             }
@@ -127,58 +199,53 @@ public class ThroughputLatencyProbe implements BenchmarkExecutionAwareProbe {
     }
 
     /** {@inheritDoc} */
-    @Override public void beforeExecute(int threadIdx) {
-        agents[threadIdx].beforeExecute();
+    @Override public void onExecuted(int threadIdx, long startNanos, long endNanos, int ops) {
+        if (ops > 0)
+            add(threadIdx, endNanos - startNanos, ops);
     }
 
     /** {@inheritDoc} */
-    @Override public void afterExecute(int threadIdx) {
-        agents[threadIdx].afterExecute();
+    @Override public void onExecuted(int threadIdx, int ops) {
+        if (ops > 0) {
+            int idx = (threadIdx % cellsCnt + 1) * CELL_LEN + EXEC_CNT;
+
+            if (shared)
+                cells.getAndAdd(idx, ops);
+            else
+                cells.lazySet(idx, cells.get(idx) + ops);
+        }
     }
 
     /**
-     *
+     * @param threadIdx Thread index.
+     * @param latency Total latency of executed operations.
+     * @param ops Number of executed operations.
      */
-    private static class ThreadAgent {
-        /** Total execution count by thread. */
-        private long execCnt;
-
-        /** Total latency by  */
-        private long totalLatency;
+    private void add(int threadIdx, long latency, int ops) {
+        int base = (threadIdx % cellsCnt + 1) * CELL_LEN;
 
-        /** Last before execute timestamp. */
-        private long beforeTs;
-
-        /**
-         *
-         */
-        public void beforeExecute() {
-            beforeTs = System.nanoTime();
+        if (shared) {
+            cells.getAndAdd(base + TOTAL_LATENCY, latency);
+            cells.getAndAdd(base + SAMPLE_CNT, ops);
+            cells.getAndAdd(base + EXEC_CNT, ops);
         }
-
-        /**
-         *
-         */
-        public void afterExecute() {
-            long latency = System.nanoTime() - beforeTs;
-
-            beforeTs = 0;
-
-            synchronized (this) {
-                execCnt++;
-                totalLatency += latency;
-            }
+        else {
+            // Single writer, ordered stores are enough to publish to the building thread.
+            cells.lazySet(base + TOTAL_LATENCY, cells.get(base + TOTAL_LATENCY) + latency);
+            cells.lazySet(base + SAMPLE_CNT, cells.get(base + SAMPLE_CNT) + ops);
+            cells.lazySet(base + EXEC_CNT, cells.get(base + EXEC_CNT) + ops);
         }
+    }
 
-        /**
-         * @param other Thread agent.
-         */
-        public synchronized void collect(ThreadAgent other) {
-            other.execCnt += execCnt;
-            other.totalLatency += totalLatency;
+    /**
+     * @param cfg Configuration, may be {@code null} if probe is not started.
+     * @return Description of latency sampling mode to append to column names, empty if every operation is timed.
+     */
+    static String samplingInfo(BenchmarkConfiguration cfg) {
+        if (cfg == null || cfg.latencySampling() <= 1)
+            return "";
 
-            execCnt = 0;
-            totalLatency = 0;
-        }
+        return ", " + (cfg.latencySamplingRandom() ? "random " : "") + "1 in " + cfg.latencySampling() +
+            " operations timed";
     }
 }
@@ -0,0 +1,309 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriver;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkTotalsOnlyProbe;
+
+import static org.yardstickframework.BenchmarkUtils.errorHelp;
+import static org.yardstickframework.BenchmarkUtils.println;
+
+/**
+ * Probe that reports pinning of virtual benchmark workers to their carrier threads.
+ * <p>
+ * A virtual thread that blocks inside {@code synchronized} block or native frame cannot unmount and
+ * holds its carrier, which limits the number of concurrently served workers to the carrier pool size.
+ * The probe records {@code jdk.VirtualThreadPinned} JFR events during the main test, writes totals
+ * and prints the code sites that pinned the most. Flight recorder is accessed reflectively,
+ * the probe does nothing on JVMs without virtual threads support.
+ */
+public class VirtualThreadPinningProbe implements BenchmarkTotalsOnlyProbe {
+    /** */
+    public static final String THRESHOLD = "BENCHMARK_PROBE_PINNING_THRESHOLD";
+
+    /** */
+    public static final String TOP_SITES = "BENCHMARK_PROBE_PINNING_TOP_SITES";
+
+    /** JFR default threshold for the pinning event. */
+    public static final String DEFAULT_THRESHOLD = "20 ms";
+
+    /** */
+    public static final int DEFAULT_TOP_SITES = 10;
+
+    /** */
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /** */
+    private BenchmarkConfiguration cfg;
+
+    /** Current recording, {@code null} if not supported. */
+    private Object rec;
+
+    /** Whether warmup points were already requested. */
+    private boolean warmupFinished;
+
+    /** {@inheritDoc} */
+    @Override public void start(BenchmarkDriver drv, BenchmarkConfiguration cfg) throws Exception {
+        this.cfg = cfg;
+
+        if (!cfg.virtualThreads()) {
+            println(cfg, getClass().getSimpleName() + " is disabled (benchmark workers are platform threads).");
+
+            return;
+        }
+
+        try {
+            rec = startRecording();
+
+            println(cfg, getClass().getSimpleName() + " is started.");
+        }
+        catch (Exception e) {
+            errorHelp(cfg, "Can not start flight recording of virtual thread pinning.", e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public void stop() throws Exception {
+        if (rec != null) {
+            invoke(rec, "close");
+
+            rec = null;
+        }
+
+        println(cfg, getClass().getSimpleName() + " is stopped.");
+    }
+
+    /** {@inheritDoc} */
+    @Override public Collection<String> metaInfo() {
+        return Arrays.asList("Virtual thread pinning", "Pinned events", "Total pinned time, ms",
+            "Max pinned time, ms");
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized Collection<BenchmarkProbePoint> points() {
+        if (rec == null)
+            return Collections.emptyList();
+
+        try {
+            if (!warmupFinished) {
+                warmupFinished = true;
+
+                // Drop events recorded during warmup.
+                invoke(rec, "close");
+
+                rec = startRecording();
+
+                return Collections.emptyList();
+            }
+
+            return Collections.singletonList(report());
+        }
+        catch (Exception e) {
+            errorHelp(cfg, "Failed to collect virtual thread pinning events.", e);
+
+            return Collections.emptyList();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public void buildPoint(long time) {
+        // No-op.
+    }
+
+    /**
+     * Dumps recording, prints top pinning sites and builds totals point.
+     *
+     * @return Totals point.
+     * @throws Exception If failed.
+     */
+    private BenchmarkProbePoint report() throws Exception {
+        Path file = Files.createTempFile("yardstick-pinning-", ".jfr");
+
+        try {
+            invoke(rec, "stop");
+
+            rec.getClass().getMethod("dump", Path.class).invoke(rec, file);
+
+            List<?> evts = (List<?>)Class.forName("jdk.jfr.consumer.RecordingFile")
+                .getMethod("readAllEvents", Path.class).invoke(null, file);
+
+            Map<String, long[]> sites = new HashMap<>();
+
+            long cnt = 0;
+            long total = 0;
+            long max = 0;
+
+            for (Object evt : evts) {
+                long dur = (Long)invoke(invoke(evt, "getDuration"), "toNanos");
+
+                cnt++;
+                total += dur;
+                max = Math.max(max, dur);
+
+                String site = site(invoke(evt, "getStackTrace"));
+
+                long[] stat = sites.get(site);
+
+                if (stat == null)
+                    sites.put(site, stat = new long[2]);
+
+                stat[0]++;
+                stat[1] += dur;
+            }
+
+            printTopSites(sites);
+
+            return new BenchmarkProbePoint(0, new double[] {cnt, total / 1_000_000d, max / 1_000_000d});
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @param sites Pinning sites with event count and total duration.
+     */
+    private void printTopSites(Map<String, long[]> sites) {
+        List<Map.Entry<String, long[]>> sorted = new ArrayList<>(sites.entrySet());
+
+        Collections.sort(sorted, new Comparator<Map.Entry<String, long[]>>() {
+            @Override public int compare(Map.Entry<String, long[]> e1, Map.Entry<String, long[]> e2) {
+                return Long.compare(e2.getValue()[1], e1.getValue()[1]);
+            }
+        });
+
+        println(cfg, "Virtual thread pinning sites [total=" + sorted.size() + ']');
+
+        int top = topSites(cfg);
+
+        for (int i = 0; i < sorted.size() && i < top; i++) {
+            Map.Entry<String, long[]> e = sorted.get(i);
+
+            println(cfg, "\t" + e.getKey() + " [events=" + e.getValue()[0] +
+                ", pinnedMs=" + e.getValue()[1] / 1_000_000 + ']');
+        }
+    }
+
+    /**
+     * @param stackTrace Recorded stack trace, possibly {@code null}.
+     * @return Topmost frame outside of JDK classes.
+     * @throws Exception If failed.
+     */
+    private static String site(Object stackTrace) throws Exception {
+        if (stackTrace == null)
+            return "<unknown>";
+
+        String first = null;
+
+        for (Object frame : (List<?>)invoke(stackTrace, "getFrames")) {
+            Object mtd = invoke(frame, "getMethod");
+
+            String cls = (String)invoke(invoke(mtd, "getType"), "getName");
+
+            String s = cls + '.' + invoke(mtd, "getName") + ':' + invoke(frame, "getLineNumber");
+
+            if (first == null)
+                first = s;
+
+            if (!cls.startsWith("java.") && !cls.startsWith("jdk.") && !cls.startsWith("sun."))
+                return s;
+        }
+
+        return first == null ? "<unknown>" : first;
+    }
+
+    /**
+     * @return Started recording.
+     * @throws Exception If failed.
+     */
+    private Object startRecording() throws Exception {
+        Class<?> recCls = Class.forName("jdk.jfr.Recording");
+
+        Object rec = recCls.getConstructor().newInstance();
+
+        Object settings = recCls.getMethod("enable", String.class).invoke(rec, PINNED_EVENT);
+
+        Class<?> settingsCls = Class.forName("jdk.jfr.EventSettings");
+
+        settingsCls.getMethod("with", String.class, String.class).invoke(settings, "threshold", threshold(cfg));
+        settingsCls.getMethod("withStackTrace").invoke(settings);
+
+        recCls.getMethod("start").invoke(rec);
+
+        return rec;
+    }
+
+    /**
+     * Invokes public no-arg method declared by a public type of the target.
+     *
+     * @param target Target object.
+     * @param name Method name.
+     * @return Method result.
+     * @throws Exception If failed.
+     */
+    private static Object invoke(Object target, String name) throws Exception {
+        for (Class<?> cls = target.getClass(); cls != null; cls = cls.getSuperclass()) {
+            if (Modifier.isPublic(cls.getModifiers())) {
+                try {
+                    Method mtd = cls.getMethod(name);
+
+                    return mtd.invoke(target);
+                }
+                catch (NoSuchMethodException ignored) {
+                    // Try superclass.
+                }
+            }
+        }
+
+        throw new NoSuchMethodException(target.getClass().getName() + '.' + name);
+    }
+
+    /**
+     * @param cfg Config.
+     * @return Pinning event threshold.
+     */
+    private static String threshold(BenchmarkConfiguration cfg) {
+        String res = cfg.customProperties() == null ? null : cfg.customProperties().get(THRESHOLD);
+
+        return res == null || res.isEmpty() ? DEFAULT_THRESHOLD : res;
+    }
+
+    /**
+     * @param cfg Config.
+     * @return Number of pinning sites to print.
+     */
+    private static int topSites(BenchmarkConfiguration cfg) {
+        try {
+            return Integer.parseInt(cfg.customProperties().get(TOP_SITES));
+        }
+        catch (NumberFormatException | NullPointerException ignored) {
+            return DEFAULT_TOP_SITES;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.yardstickframework.BenchmarkUtils;
+
+/**
+ * Kernel scheduler statistics of benchmark worker threads, read from {@code /proc/self/task/<tid>/schedstat}
+ * and {@code status}. Worker threads are found by kernel thread IDs they register on start with
+ * {@link BenchmarkUtils#registerWorkerThread(int)}.
+ * <p>
+ * Not thread safe.
+ */
+final class WorkerTasks {
+    /** Time workers spent on CPU, in nanoseconds. */
+    static final int RUNNING = 0;
+
+    /** Time workers spent in run queues, in nanoseconds. */
+    static final int WAIT = 1;
+
+    /** Maximum time a single worker spent in run queues, in nanoseconds. */
+    static final int MAX_WAIT = 2;
+
+    /** Voluntary context switches. */
+    static final int VOL = 3;
+
+    /** Involuntary context switches. */
+    static final int INVOL = 4;
+
+    /** */
+    static final int COUNTERS = 5;
+
+    /** Tasks of the process. */
+    private static final String TASKS = "/proc/self/task";
+
+    /** Worker threads by kernel thread ID. */
+    private final Map<String, Task> workers = new HashMap<>();
+
+    /**
+     * @return {@code True} if kernel thread IDs and scheduler statistics of threads are available.
+     */
+    static boolean available() {
+        String tid = BenchmarkUtils.currentThreadTid();
+
+        return tid != null && new File(TASKS + "/" + tid + "/schedstat").canRead();
+    }
+
+    /**
+     * Reads statistics of worker threads. Counters of a thread found by this call start from the moment
+     * it is found, threads that have finished are forgotten.
+     *
+     * @param res Array of {@link #COUNTERS} length to put counter increases since the previous call to.
+     * @param threads Thread indexes to account, once accounted threads are accounted until they finish,
+     *      {@code null} to account all workers.
+     * @return Number of worker threads accounted.
+     */
+    int read(long[] res, boolean[] threads) {
+        findWorkers(threads);
+
+        for (int i = 0; i < COUNTERS; i++)
+            res[i] = 0;
+
+        int cnt = 0;
+
+        for (Iterator<Task> it = workers.values().iterator(); it.hasNext(); ) {
+            Task task = it.next();
+
+            long running0 = task.running;
+            long wait0 = task.wait;
+            long vol0 = task.vol;
+            long invol0 = task.invol;
+
+            try {
+                task.read();
+            }
+            catch (IOException ignored) {
+                // Thread has finished.
+                task.close();
+
+                it.remove();
+
+                continue;
+            }
+
+            res[RUNNING] += task.running - running0;
+            res[WAIT] += task.wait - wait0;
+            res[MAX_WAIT] = Math.max(res[MAX_WAIT], task.wait - wait0);
+            res[VOL] += task.vol - vol0;
+            res[INVOL] += task.invol - invol0;
+
+            cnt++;
+        }
+
+        return cnt;
+    }
+
+    /**
+     * Closes statistics files.
+     */
+    void close() {
+        for (Task task : workers.values())
+            task.close();
+
+        workers.clear();
+    }
+
+    /**
+     * Finds worker threads started since the previous call.
+     *
+     * @param threads Thread indexes to account, {@code null} to account all workers.
+     */
+    private void findWorkers(boolean[] threads) {
+        for (Map.Entry<String, Integer> entry : BenchmarkUtils.workerThreads().entrySet()) {
+            String tid = entry.getKey();
+
+            int idx = entry.getValue();
+
+            if (workers.containsKey(tid) || threads != null && (idx >= threads.length || !threads[idx]))
+                continue;
+
+            try {
+                Task task = new Task(TASKS + "/" + tid);
+
+                try {
+                    task.read();
+                }
+                catch (IOException e) {
+                    task.close();
+
+                    throw e;
+                }
+
+                workers.put(tid, task);
+            }
+            catch (IOException ignored) {
+                // Thread has finished.
+            }
+        }
+    }
+
+    /**
+     * Worker thread statistics.
+     */
+    private static class Task {
+        /** */
+        private final ProcFile schedstat;
+
+        /** */
+        private final ProcFile status;
+
+        /** Time on CPU, in nanoseconds. */
+        private long running;
+
+        /** Time in run queue, in nanoseconds. */
+        private long wait;
+
+        /** Voluntary context switches. */
+        private long vol;
+
+        /** Involuntary context switches. */
+        private long invol;
+
+        /**
+         * @param dir Task directory.
+         * @throws IOException If failed.
+         */
+        Task(String dir) throws IOException {
+            schedstat = new ProcFile(dir + "/schedstat");
+
+            try {
+                status = new ProcFile(dir + "/status");
+            }
+            catch (IOException e) {
+                schedstat.close();
+
+                throw e;
+            }
+        }
+
+        /**
+         * @throws IOException If failed, for example the thread has finished.
+         */
+        void read() throws IOException {
+            // Fields: time on CPU, time in run queue, number of time slices.
+            schedstat.read();
+
+            long running0 = schedstat.nextLong();
+            long wait0 = schedstat.nextLong();
+
+            // Files of finished threads are empty.
+            if (running0 < 0 || wait0 < 0)
+                throw new IOException("Thread has finished.");
+
+            running = running0;
+            wait = wait0;
+
+            status.read();
+
+            vol = status.find("voluntary_ctxt_switches:") ? status.nextLong() : 0;
+            invol = status.find("nonvoluntary_ctxt_switches:") ? status.nextLong() : 0;
+        }
+
+        /**
+         * Closes statistics files.
+         */
+        void close() {
+            try {
+                schedstat.close();
+                status.close();
+            }
+            catch (IOException ignored) {
+                // No-op.
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.jfree.chart.ChartFactory;
@@ -39,14 +40,25 @@ import org.jfree.chart.ChartRenderingInfo;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.AxisSpace;
+import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.entity.StandardEntityCollection;
+import org.jfree.chart.plot.IntervalMarker;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.LookupPaintScale;
+import org.jfree.chart.renderer.xy.XYBlockRenderer;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.chart.title.PaintScaleLegend;
 import org.jfree.chart.title.TextTitle;
 import org.jfree.data.xy.DefaultXYDataset;
+import org.jfree.data.xy.DefaultXYZDataset;
+import org.jfree.ui.Layer;
+import org.jfree.ui.RectangleAnchor;
 import org.jfree.ui.RectangleEdge;
+import org.yardstickframework.probes.GcProbe;
+import org.yardstickframework.probes.LatencyPercentilesProbe;
+import org.yardstickframework.probes.PerCpuProbe;
 import org.yardstickframework.probes.PercentileProbe;
 import org.yardstickframework.probes.ThroughputLatencyProbe;
 import org.yardstickframework.writers.BenchmarkProbePointCsvWriter;
@@ -77,6 +89,18 @@ public class JFreeChartGraphPlotter {
     /** */
     private static final String MULTIPLE_DRIVERS_MARKER_FILE = ".multiple-drivers";
 
+    /** Label of time column in milliseconds. */
+    private static final String TIME_MS_LABEL = "Time, ms";
+
+    /** Label of time column in seconds. */
+    private static final String TIME_SEC_LABEL = "Time, sec";
+
+    /** Color of garbage collection markers. */
+    private static final Color GC_COLOR = new Color(231, 76, 60);
+
+    /** Number of color steps of heatmaps. */
+    private static final int HEATMAP_STEPS = 10;
+
     /** */
     private static final Color[] PLOT_COLORS = {new Color(39, 174, 96), new Color(41, 128, 185),
         new Color(192, 57, 43), new Color(142, 68, 173), new Color(44, 62, 80), new Color(243, 156, 18),
@@ -394,10 +418,17 @@ public class JFreeChartGraphPlotter {
 
                     for (List<File> files : files(f2).values()) {
                         for (File file : files) {
+                            if (file.getName().equals(PerCpuProbe.class.getSimpleName() + INPUT_FILE_EXTENSION)) {
+                                processHeatmaps(file, infoMap);
+
+                                continue;
+                            }
+
                             List<PlotData> plotData = readData(file);
 
                             if (!plotData.isEmpty())
-                                processPlots(file.getParentFile(), Collections.singleton(plotData), infoMap, STANDARD);
+                                processPlots(file.getParentFile(), Collections.singleton(plotData), infoMap, STANDARD,
+                                    gcIntervals(file));
                         }
                     }
 
@@ -419,6 +450,10 @@ public class JFreeChartGraphPlotter {
         Map<String, List<JFreeChartPlotInfo>> infoMap = new HashMap<>();
 
         for (Map.Entry<String, List<List<List<File>>>> entry : res.entrySet()) {
+            // Processors of different hosts are not comparable, heatmaps are built for single runs only.
+            if (isProbeResultFile(entry, PerCpuProbe.class))
+                continue;
+
             Collection<List<PlotData>> plots = new ArrayList<>(entry.getValue().size());
 
             for (List<List<File>> files : entry.getValue()) {
@@ -482,7 +517,7 @@ public class JFreeChartGraphPlotter {
                 }
             }
 
-            processPlots(folderToWrite, plots, infoMap, mode);
+            processPlots(folderToWrite, plots, infoMap, mode, null);
         }
 
         if (!infoMap.isEmpty())
@@ -660,10 +695,12 @@ public class JFreeChartGraphPlotter {
      * @param plots Collections of plots.
      * @param infoMap Map with additional plot info.
      * @param mode Generation mode.
+     * @param gcIntervals Intervals with garbage collections to mark on the charts, or {@code null}.
      * @throws Exception If failed.
      */
     private static void processPlots(File folderToWrite, Collection<List<PlotData>> plots,
-        Map<String, List<JFreeChartPlotInfo>> infoMap, JFreeChartGenerationMode mode) throws Exception {
+        Map<String, List<JFreeChartPlotInfo>> infoMap, JFreeChartGenerationMode mode, List<long[]> gcIntervals)
+        throws Exception {
         ChartRenderingInfo info = new ChartRenderingInfo(new StandardEntityCollection());
 
         XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, false);
@@ -681,6 +718,8 @@ public class JFreeChartGraphPlotter {
             String yAxisLabel = "";
             String plotName = "";
 
+            PlotData last = null;
+
             int cnt = 0;
 
             for (List<PlotData> plotData0 : plots) {
@@ -695,6 +734,8 @@ public class JFreeChartGraphPlotter {
                 yAxisLabel = plotData.yAxisLabel;
                 plotName = plotData.plotName();
 
+                last = plotData;
+
                 infoList.add(info(plotData.series(), mode));
             }
 
@@ -726,6 +767,17 @@ public class JFreeChartGraphPlotter {
             plot.setFixedRangeAxisSpace(as);
             plot.setOutlineStroke(stroke);
 
+            if (gcIntervals != null) {
+                for (long[] gc : gcIntervals) {
+                    IntervalMarker marker = new IntervalMarker(last.plotTime(gc[0]), last.plotTime(gc[1]));
+
+                    marker.setPaint(GC_COLOR);
+                    marker.setAlpha(0.2f);
+
+                    plot.addDomainMarker(marker, Layer.BACKGROUND);
+                }
+            }
+
             for (int i = 0; i < infoList.size(); i++) {
                 Color color = PLOT_COLORS[i % PLOT_COLORS.length];
 
@@ -756,6 +808,158 @@ public class JFreeChartGraphPlotter {
         }
     }
 
+    /**
+     * Builds heatmaps of processors by time, one per {@link PerCpuProbe} metric.
+     *
+     * @param file {@link PerCpuProbe} results file.
+     * @param infoMap Map with additional plot info.
+     * @throws Exception If failed.
+     */
+    private static void processHeatmaps(File file, Map<String, List<JFreeChartPlotInfo>> infoMap) throws Exception {
+        List<PlotData> plotData = readData(file);
+
+        if (plotData.isEmpty())
+            return;
+
+        // Columns are named "CPU <number> <metric>, %", grouped by metric.
+        Map<String, List<PlotData>> metrics = new LinkedHashMap<>();
+
+        for (PlotData pd : plotData) {
+            String label = pd.yAxisLabel;
+
+            int idx = label.indexOf(' ', PerCpuProbe.CPU_PREFIX.length());
+
+            if (!label.startsWith(PerCpuProbe.CPU_PREFIX) || idx < 0)
+                continue;
+
+            String metric = label.substring(idx + 1);
+
+            List<PlotData> list = metrics.get(metric);
+
+            if (list == null) {
+                list = new ArrayList<>();
+
+                metrics.put(metric, list);
+            }
+
+            list.add(pd);
+        }
+
+        LookupPaintScale scale = new LookupPaintScale(0, 100 + 1e-9, WHITE);
+
+        for (int i = 0; i < HEATMAP_STEPS; i++) {
+            float f = (i + 1f) / HEATMAP_STEPS;
+
+            scale.add(100d * i / HEATMAP_STEPS, new Color(1f, 1f - f, 1f - f));
+        }
+
+        int plotIdx = 0;
+
+        for (Map.Entry<String, List<PlotData>> e : metrics.entrySet()) {
+            List<PlotData> cpus = e.getValue();
+
+            double[] time = cpus.get(0).series().data[0];
+
+            int len = time.length * cpus.size();
+
+            double[][] data = new double[3][len];
+
+            PlotSeries all = new PlotSeries(cpus.get(0).series().seriesName);
+
+            all.addConfigurations(new ArrayList<>(cpus.get(0).series().configuration()));
+
+            int maxCpu = 0;
+
+            for (int c = 0; c < cpus.size(); c++) {
+                String label = cpus.get(c).yAxisLabel;
+
+                int cpu = Integer.parseInt(label.substring(PerCpuProbe.CPU_PREFIX.length(), label.indexOf(' ',
+                    PerCpuProbe.CPU_PREFIX.length())));
+
+                maxCpu = Math.max(maxCpu, cpu);
+
+                double[][] series = cpus.get(c).series().data;
+
+                for (int t = 0; t < time.length; t++) {
+                    int idx = c * time.length + t;
+
+                    data[0][idx] = series[0][t];
+                    data[1][idx] = cpu;
+                    data[2][idx] = series[1][t];
+
+                    all.rawData().add(new double[] {series[0][t], series[1][t]});
+                }
+            }
+
+            all.finish();
+
+            DefaultXYZDataset dataSet = new DefaultXYZDataset();
+
+            dataSet.addSeries(e.getKey(), data);
+
+            XYBlockRenderer renderer = new XYBlockRenderer();
+
+            renderer.setBlockWidth(time.length > 1 ? (time[time.length - 1] - time[0]) / (time.length - 1) : 1);
+            renderer.setBlockHeight(1);
+            renderer.setPaintScale(scale);
+
+            // Point values are collected over the interval that ends at the point time.
+            renderer.setBlockAnchor(RectangleAnchor.RIGHT);
+
+            NumberAxis xAxis = new NumberAxis(cpus.get(0).xAxisLabel);
+            NumberAxis yAxis = new NumberAxis("CPU");
+
+            yAxis.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
+            yAxis.setRange(-0.5, maxCpu + 0.5);
+
+            XYPlot plot = new XYPlot(dataSet, xAxis, yAxis, renderer);
+
+            plot.setBackgroundPaint(WHITE);
+            plot.setDomainGridlinesVisible(false);
+            plot.setRangeGridlinesVisible(false);
+
+            Font font = new Font("Helvetica,Arial,sans-serif", Font.BOLD, yAxis.getTickLabelFont().getSize() + 5);
+
+            xAxis.setTickLabelFont(font);
+            xAxis.setLabelFont(font);
+            yAxis.setTickLabelFont(font);
+            yAxis.setLabelFont(font);
+
+            JFreeChart chart = new JFreeChart(plot);
+
+            chart.removeLegend();
+
+            NumberAxis scaleAxis = new NumberAxis();
+
+            scaleAxis.setRange(0, 100);
+
+            PaintScaleLegend legend = new PaintScaleLegend(scale, scaleAxis);
+
+            legend.setPosition(RectangleEdge.RIGHT);
+            legend.setMargin(4, 4, 40, 4);
+
+            chart.addSubtitle(legend);
+
+            chart.setTitle(new TextTitle("Per CPU " + e.getKey(), new Font(font.getName(), font.getStyle(), 30)));
+
+            String cnt = Integer.toString(++plotIdx);
+
+            File res = new File(file.getParentFile(), "Plot_" + PerCpuProbe.class.getSimpleName() + "_" +
+                (cnt.length() == 1 ? "0" + cnt : cnt) + ".png");
+
+            ChartUtilities.saveChartAsPNG(res, chart, 1000, 500,
+                new ChartRenderingInfo(new StandardEntityCollection()));
+
+            JFreeChartPlotInfo info = info(all, STANDARD);
+
+            info.color(Integer.toHexString(Color.RED.getRGB()).substring(2));
+
+            infoMap.put(res.getAbsolutePath(), Collections.singletonList(info));
+
+            println("Chart is saved to file: ", res);
+        }
+    }
+
     /**
      * @param series Plot series.
      * @param mode Generation mode.
@@ -810,6 +1014,9 @@ public class JFreeChartGraphPlotter {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
             long initTime = 0;
 
+            // Divisor of time column to plot it in seconds.
+            double timeDiv = 1;
+
             String drvNames = null;
             String[] metaInfo = null;
 
@@ -847,6 +1054,13 @@ public class JFreeChartGraphPlotter {
 
                     String xAxisLabel = metaInfo == null || metaInfo.length == 0 ? "" : metaInfo[0].replace("\"", "");
 
+                    // Millisecond resolution points are plotted in seconds to be comparable with older results.
+                    if (TIME_MS_LABEL.equals(xAxisLabel)) {
+                        xAxisLabel = TIME_SEC_LABEL;
+
+                        timeDiv = 1000;
+                    }
+
                     for (int i = 0; i < plotNum; i++) {
                         PlotSeries single = new PlotSeries(drvNames);
 
@@ -869,7 +1083,7 @@ public class JFreeChartGraphPlotter {
                 double[] tup = new double[split.length];
 
                 for (int i = 0; i < tup.length; i++) {
-                    double d = i == 0 ? (Long.parseLong(split[0]) - initTime) : Double.parseDouble(split[i]);
+                    double d = i == 0 ? (Long.parseLong(split[0]) - initTime) / timeDiv : Double.parseDouble(split[i]);
 
                     tup[i] = d;
                 }
@@ -878,9 +1092,13 @@ public class JFreeChartGraphPlotter {
                     data.get(i).series().rawData().add(new double[] {tup[0], tup[i + 1]});
             }
 
-            for (PlotData plotData : data)
+            for (PlotData plotData : data) {
                 plotData.series().finish();
 
+                plotData.initTime = initTime;
+                plotData.timeDiv = timeDiv;
+            }
+
             return data;
         }
         catch (Exception e) {
@@ -890,6 +1108,58 @@ public class JFreeChartGraphPlotter {
         }
     }
 
+    /**
+     * Reads intervals with garbage collections from {@link GcProbe} results of the same driver, if the file
+     * has throughput or latency results.
+     *
+     * @param file Probe results file.
+     * @return Intervals with collections, in milliseconds since epoch, or {@code null} if there are none.
+     */
+    private static List<long[]> gcIntervals(File file) {
+        if (!file.getName().equals(ThroughputLatencyProbe.class.getSimpleName() + INPUT_FILE_EXTENSION) &&
+            !file.getName().equals(LatencyPercentilesProbe.class.getSimpleName() + INPUT_FILE_EXTENSION))
+            return null;
+
+        File gcFile = new File(file.getParentFile(), GcProbe.class.getSimpleName() + INPUT_FILE_EXTENSION);
+
+        if (!gcFile.canRead())
+            return null;
+
+        List<long[]> res = new ArrayList<>();
+
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(gcFile)))) {
+            long prevTime = -1;
+
+            for (String line; (line = br.readLine()) != null; ) {
+                if (line.startsWith("--") || line.startsWith(DRV_NAMES_PREFIX) || line.startsWith(META_INFO_PREFIX))
+                    continue;
+
+                String[] split = line.split(",");
+
+                long time = Long.parseLong(split[0]);
+
+                double pause = 0;
+
+                // Every collector has collections count, total time, max time and reclaimed memory columns.
+                for (int i = 2; i < split.length; i += 4)
+                    pause += Double.parseDouble(split[i]);
+
+                // The first point has no known start, it is marked from its own time.
+                if (pause > 0)
+                    res.add(new long[] {prevTime < 0 ? time : prevTime, time});
+
+                prevTime = time;
+            }
+        }
+        catch (Exception e) {
+            errorHelp("Exception is raised while processing file (will skip): " + gcFile.getAbsolutePath(), e);
+
+            return null;
+        }
+
+        return res.isEmpty() ? null : res;
+    }
+
     /**
      * @param fName Folder name.
      * @return Substring containing benchmark time.
@@ -971,6 +1241,12 @@ public class JFreeChartGraphPlotter {
         /** */
         private final String yAxisLabel;
 
+        /** Time of the first point, as written by the probe. */
+        private long initTime;
+
+        /** Divisor of the time column to plot it in seconds. */
+        private double timeDiv = 1;
+
         /**
          * @param plotName Plot name.
          * @param series Series.
@@ -997,6 +1273,14 @@ public class JFreeChartGraphPlotter {
         public String plotName() {
             return plotName;
         }
+
+        /**
+         * @param millis Time in milliseconds since epoch.
+         * @return X axis value of the time.
+         */
+        public double plotTime(long millis) {
+            return (millis * timeDiv / 1000 - initTime) / timeDiv;
+        }
     }
 
     /**
@@ -14,10 +14,13 @@
 
 package org.yardstickframework.report.jfreechart;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.text.NumberFormat;
 import java.text.ParseException;
@@ -32,6 +35,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 import org.yardstickframework.probes.PercentileProbe;
+import org.yardstickframework.probes.SaturationProbe;
 import org.yardstickframework.probes.ThroughputLatencyProbe;
 import org.yardstickframework.writers.BenchmarkProbePointCsvWriter;
 
@@ -204,6 +208,8 @@ public class JFreeChartResultPageGenerator {
 
             writeLine(bw, "<h3>Benchmark " + modeAsString + "Results" + timeAsString + "</h3>");
 
+            writeVerdict(bw, outFolder);
+
             Iterator<List<File>> iter = fileMap.values().iterator();
 
             if (iter.hasNext()) {
@@ -313,6 +319,65 @@ public class JFreeChartResultPageGenerator {
         }
     }
 
+    /**
+     * Writes verdict of the load generator if the folder has {@link SaturationProbe} results.
+     *
+     * @param bw Buffered writer.
+     * @param folder Folder with probe results.
+     * @throws IOException If failed.
+     */
+    private static void writeVerdict(BufferedWriter bw, File folder) throws IOException {
+        File file = new File(folder, SaturationProbe.class.getSimpleName() + ".csv");
+
+        if (!file.canRead())
+            return;
+
+        String last = null;
+
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
+            for (String line; (line = br.readLine()) != null; ) {
+                if (!line.startsWith("--") && !line.startsWith(BenchmarkProbePointCsvWriter.DRV_NAMES_PREFIX) &&
+                    !line.startsWith(BenchmarkProbePointCsvWriter.META_INFO_PREFIX) && !line.trim().isEmpty())
+                    last = line;
+            }
+        }
+
+        if (last == null)
+            return;
+
+        int code;
+
+        try {
+            // Verdict of the run is the last column.
+            code = (int)Double.parseDouble(last.substring(last.lastIndexOf(',') + 1));
+        }
+        catch (NumberFormatException e) {
+            errorHelp("Incorrect verdict in file: " + file.getAbsolutePath(), e);
+
+            return;
+        }
+
+        String cls;
+        String desc;
+
+        if (code == SaturationProbe.DRIVER_BOUND) {
+            cls = "alert-danger";
+            desc = "the load generator limited throughput, results describe the driver rather than the server.";
+        }
+        else if (code == SaturationProbe.SERVER_BOUND) {
+            cls = "alert-success";
+            desc = "the load generator had spare capacity, results describe the server.";
+        }
+        else {
+            cls = "alert-warning";
+            desc = "it is not clear whether the load generator or the server limited throughput.";
+        }
+
+        writeLine(bw, "<div class=\"alert " + cls + "\" style=\"width:auto;display:inline-block;\">");
+        writeLine(bw, "<strong>Load generator verdict: " + SaturationProbe.verdict(code) + "</strong> - " + desc);
+        writeLine(bw, "</div>");
+    }
+
     /**
      * @param infoMap Info map.
      * @param bw Buffered writer.
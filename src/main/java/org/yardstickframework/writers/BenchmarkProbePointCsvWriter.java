@@ -29,7 +29,7 @@ import org.yardstickframework.BenchmarkProbePoint;
 import org.yardstickframework.BenchmarkProbePointWriter;
 import org.yardstickframework.BenchmarkUtils;
 
-import static org.yardstickframework.BenchmarkUtils.WEIGHT_DELIMITER;
+import static org.yardstickframework.BenchmarkUtils.driverName;
 import static org.yardstickframework.BenchmarkUtils.fixFolderName;
 
 /**
@@ -107,7 +107,7 @@ public class BenchmarkProbePointCsvWriter implements BenchmarkProbePointWriter {
             StringBuilder sb = new StringBuilder();
 
             for (String drvName : cfg.driverNames())
-                sb.append(drvName.split(WEIGHT_DELIMITER)[0].trim()).append('-');
+                sb.append(driverName(drvName)).append('-');
 
             if (sb.length() > 0)
                 sb.delete(sb.length() - 1, sb.length());
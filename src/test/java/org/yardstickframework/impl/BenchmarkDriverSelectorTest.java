@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.yardstickframework.impl;
+
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test.
+ */
+public class BenchmarkDriverSelectorTest {
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testWeightedDistribution() throws Exception {
+        int[] weights = {1, 5, 0, 14, 3, 7};
+
+        BenchmarkDriverSelector selector = new BenchmarkDriverSelector(weights);
+
+        SplittableRandom rand = new SplittableRandom(42);
+
+        int draws = 1_000_000;
+
+        int[] hits = new int[weights.length];
+
+        for (int i = 0; i < draws; i++)
+            hits[selector.next(rand)]++;
+
+        for (int i = 0; i < weights.length; i++)
+            Assert.assertEquals("Driver " + i, weights[i] / 30d, (double)hits[i] / draws, 0.005);
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testSameSeedSameSequence() throws Exception {
+        BenchmarkDriverSelector selector = new BenchmarkDriverSelector(new int[] {2, 3, 5});
+
+        SplittableRandom rand1 = new SplittableRandom(7);
+        SplittableRandom rand2 = new SplittableRandom(7);
+
+        for (int i = 0; i < 1_000; i++)
+            Assert.assertEquals(selector.next(rand1), selector.next(rand2));
+    }
+}
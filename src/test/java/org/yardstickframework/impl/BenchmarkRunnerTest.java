@@ -17,11 +17,25 @@
 
 package org.yardstickframework.impl;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.Assert;
 import org.junit.Test;
+import org.yardstickframework.BenchmarkAsyncDriver;
+import org.yardstickframework.BenchmarkBatchDriver;
 import org.yardstickframework.BenchmarkConfiguration;
 import org.yardstickframework.BenchmarkDriver;
 import org.yardstickframework.BenchmarkDriverAdapter;
@@ -78,6 +92,241 @@ public class BenchmarkRunnerTest {
         }
     }
 
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testConstantRate() throws Exception {
+        final BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.warmup(0);
+        cfg.duration(2);
+        cfg.threads(4);
+        cfg.rate(1_000);
+        cfg.output(System.out);
+        cfg.error(System.err);
+
+        CountingBenchmarkDriver driver = new CountingBenchmarkDriver();
+
+        driver.setUp(cfg);
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+            cfg,
+            new BenchmarkDriver[] {driver},
+            new BenchmarkProbeSet[] {
+                new BenchmarkProbeSet(driver, cfg, Collections.<BenchmarkProbe>emptyList(),
+                    new BenchmarkLoader())},
+            new int[] {1});
+
+        long start = System.nanoTime();
+
+        runner.runBenchmark();
+
+        Assert.assertTrue(driver.stopped.await(30, TimeUnit.SECONDS));
+
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        double expOps = secs * cfg.rate();
+
+        long ops = driver.ops.get();
+
+        // Driver is much faster than requested rate, so the rate is limited by the runner only.
+        Assert.assertTrue("Unexpected number of operations [ops=" + ops + ", exp=" + expOps + ']',
+            ops > expOps * 0.8 && ops < expOps * 1.1);
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testAsyncInFlightWindow() throws Exception {
+        final BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.warmup(0);
+        cfg.duration(1);
+        cfg.threads(2);
+        cfg.asyncInFlight(8);
+        cfg.output(System.out);
+        cfg.error(System.err);
+
+        AsyncBenchmarkDriver driver = new AsyncBenchmarkDriver();
+
+        driver.setUp(cfg);
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+            cfg,
+            new BenchmarkDriver[] {driver},
+            new BenchmarkProbeSet[] {
+                new BenchmarkProbeSet(driver, cfg, Collections.<BenchmarkProbe>emptyList(),
+                    new BenchmarkLoader())},
+            new int[] {1});
+
+        runner.runBenchmark();
+
+        Assert.assertTrue(driver.stopped.await(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(cfg.threads() * cfg.asyncInFlight(), driver.maxInFlight.get());
+        Assert.assertEquals(0, driver.inFlight.get());
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testBatchOperationsCount() throws Exception {
+        final BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.warmup(0);
+        cfg.threads(3);
+        cfg.testBatch(100);
+        cfg.operationsCount(100_005);
+        cfg.output(System.out);
+        cfg.error(System.err);
+
+        CountingBenchmarkDriver driver = new CountingBenchmarkDriver();
+
+        driver.setUp(cfg);
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+            cfg,
+            new BenchmarkDriver[] {driver},
+            new BenchmarkProbeSet[] {
+                new BenchmarkProbeSet(driver, cfg, Collections.<BenchmarkProbe>emptyList(),
+                    new BenchmarkLoader())},
+            new int[] {1});
+
+        runner.runBenchmark();
+
+        Assert.assertTrue(driver.stopped.await(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(cfg.operationsCount(), driver.ops.get());
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testThreadGroups() throws Exception {
+        final BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.warmup(0);
+        cfg.duration(1);
+        cfg.threads(3);
+        cfg.output(System.out);
+        cfg.error(System.err);
+
+        CountingBenchmarkDriver writer = new CountingBenchmarkDriver();
+        CountingBenchmarkDriver reader = new CountingBenchmarkDriver();
+
+        writer.setUp(cfg);
+        reader.setUp(cfg);
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+            cfg,
+            new BenchmarkDriver[] {writer, reader},
+            new BenchmarkProbeSet[] {
+                new BenchmarkProbeSet(writer, cfg, Collections.<BenchmarkProbe>emptyList(), new BenchmarkLoader()),
+                new BenchmarkProbeSet(reader, cfg, Collections.<BenchmarkProbe>emptyList(), new BenchmarkLoader())},
+            new int[] {1, 1},
+            new int[] {1, 2});
+
+        runner.runBenchmark();
+
+        Assert.assertTrue(writer.stopped.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(reader.stopped.await(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Collections.singleton("benchmark-worker-0"), writer.threads);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("benchmark-worker-1", "benchmark-worker-2")), reader.threads);
+    }
+
+    /**
+     *
+     */
+    private static class AsyncBenchmarkDriver extends BenchmarkDriverAdapter implements BenchmarkAsyncDriver {
+        /** */
+        private final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor();
+
+        /** */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /** */
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        /** */
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        /** {@inheritDoc} */
+        @Override public boolean test(Map<Object, Object> ctx) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        /** {@inheritDoc} */
+        @Override public CompletionStage<Boolean> testAsync(Map<Object, Object> ctx) throws Exception {
+            final CompletableFuture<Boolean> fut = new CompletableFuture<>();
+
+            int cnt = inFlight.incrementAndGet();
+
+            while (true) {
+                int max = maxInFlight.get();
+
+                if (cnt <= max || maxInFlight.compareAndSet(max, cnt))
+                    break;
+            }
+
+            exec.schedule(new Runnable() {
+                @Override public void run() {
+                    inFlight.decrementAndGet();
+
+                    fut.complete(true);
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+
+            return fut;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void tearDown() throws Exception {
+            exec.shutdownNow();
+
+            stopped.countDown();
+        }
+    }
+
+    /**
+     *
+     */
+    private static class CountingBenchmarkDriver extends BenchmarkDriverAdapter implements BenchmarkBatchDriver {
+        /** */
+        private final AtomicLong ops = new AtomicLong();
+
+        /** */
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        /** Names of threads that executed the driver. */
+        private final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        /** {@inheritDoc} */
+        @Override public boolean test(Map<Object, Object> ctx) throws Exception {
+            ops.incrementAndGet();
+
+            threads.add(Thread.currentThread().getName());
+
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int testBatch(Map<Object, Object> ctx, int n) throws Exception {
+            ops.addAndGet(n);
+
+            return n;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void tearDown() throws Exception {
+            stopped.countDown();
+        }
+    }
+
     /**
      *
      */
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriverAdapter;
+import org.yardstickframework.BenchmarkProbePoint;
+
+import static org.yardstickframework.BenchmarkUtils.WORKER_THREAD_PREFIX;
+
+/**
+ * Test.
+ */
+public class AllocationCpuProbeTest {
+    /** Keeps allocations from being eliminated. */
+    private static volatile Object sink;
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testThreadSetUpNotAccounted() throws Exception {
+        BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.output(System.out);
+        cfg.error(System.err);
+        cfg.threads(1);
+
+        final AllocationCpuProbe probe = new AllocationCpuProbe();
+
+        probe.start(new BenchmarkDriverAdapter() {
+            @Override public boolean test(Map<Object, Object> ctx) {
+                return true;
+            }
+        }, cfg);
+
+        ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override public Thread newThread(Runnable r) {
+                return new Thread(r, WORKER_THREAD_PREFIX + 0);
+            }
+        });
+
+        try {
+            // Worker is found before its set up.
+            worker.submit(new Runnable() {
+                @Override public void run() {
+                    // No-op.
+                }
+            }).get();
+
+            Assume.assumeTrue(point(probe) != null);
+
+            // Set up of the thread allocates 64 MB.
+            worker.submit(new Runnable() {
+                @Override public void run() {
+                    for (int i = 0; i < 64; i++)
+                        sink = new byte[1024 * 1024];
+                }
+            }).get();
+
+            point(probe);
+
+            worker.submit(new Runnable() {
+                @Override public void run() {
+                    probe.onExecuted(0, 1000);
+                }
+            }).get();
+
+            double[] vals = point(probe);
+
+            // Allocation of the set up would be about 64 KB per operation.
+            Assert.assertTrue("Allocated per operation: " + vals[1], vals[1] < 16 * 1024);
+        }
+        finally {
+            worker.shutdownNow();
+
+            probe.stop();
+        }
+    }
+
+    /**
+     * @param probe Probe.
+     * @return Values of the built point, {@code null} if probe is disabled.
+     * @throws Exception If failed.
+     */
+    private static double[] point(AllocationCpuProbe probe) throws Exception {
+        probe.buildPoint(System.currentTimeMillis());
+
+        for (int i = 0; i < 1000; i++) {
+            Collection<BenchmarkProbePoint> pnts = probe.points();
+
+            if (!pnts.isEmpty())
+                return pnts.iterator().next().values();
+
+            Thread.sleep(10);
+        }
+
+        return null;
+    }
+}
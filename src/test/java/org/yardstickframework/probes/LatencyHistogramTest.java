@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Test.
+ */
+public class LatencyHistogramTest {
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testExactLowValues() throws Exception {
+        LatencyHistogram hist = new LatencyHistogram(MINUTES.toNanos(10), 3);
+
+        for (long v = 0; v < 2000; v++)
+            hist.record(v, 1);
+
+        Assert.assertEquals(2000, hist.totalCount());
+        Assert.assertEquals(999, hist.valueAtPercentile(50));
+        Assert.assertEquals(1999, hist.maxValue());
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testRelativeError() throws Exception {
+        LatencyHistogram hist = new LatencyHistogram(MINUTES.toNanos(10), 3);
+
+        for (long v = 1; v < MINUTES.toNanos(10); v = v * 3 + 7) {
+            hist.reset();
+
+            hist.record(v, 1);
+
+            long max = hist.maxValue();
+
+            Assert.assertTrue("Value " + v, max >= v && max - v <= v / 1000);
+        }
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testPercentilesAndSubtract() throws Exception {
+        LatencyHistogram hist = new LatencyHistogram(MINUTES.toNanos(1), 2);
+
+        hist.record(1_000, 99_000);
+        hist.record(1_000_000, 990);
+        hist.record(50_000_000, 9);
+
+        // Values above highest trackable are clamped.
+        hist.recordConcurrent(MINUTES.toNanos(5), 1);
+
+        LatencyHistogram snapshot = hist.copy();
+
+        Assert.assertEquals(1_000, hist.valueAtPercentile(50), 10);
+        Assert.assertEquals(1_000, hist.valueAtPercentile(99), 10);
+        Assert.assertEquals(1_000_000, hist.valueAtPercentile(99.9), 10_000);
+        Assert.assertEquals(50_000_000, hist.valueAtPercentile(99.999), 500_000);
+        Assert.assertEquals(MINUTES.toNanos(1), hist.maxValue(), MINUTES.toNanos(1) / 100);
+
+        hist.record(7, 5);
+
+        hist.subtract(snapshot);
+
+        Assert.assertEquals(5, hist.totalCount());
+        Assert.assertEquals(7, hist.maxValue());
+    }
+}
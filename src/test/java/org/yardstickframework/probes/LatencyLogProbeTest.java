@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriverAdapter;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Test.
+ */
+public class LatencyLogProbeTest {
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File folder = Files.createTempDirectory("latency-log").toFile();
+
+        BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.output(System.out);
+        cfg.threads(2);
+
+        // Smallest buffers, so that records span many blocks.
+        Map<String, String> props = new HashMap<>();
+
+        props.put(LatencyLogProbe.FOLDER, folder.getPath());
+        props.put(LatencyLogProbe.BUFFER_SIZE, "1");
+
+        cfg.customProperties(props);
+
+        LatencyLogProbe probe = new LatencyLogProbe();
+
+        probe.start(new BenchmarkDriverAdapter() {
+            @Override public boolean test(Map<Object, Object> ctx) {
+                return true;
+            }
+        }, cfg);
+
+        final long base = System.nanoTime();
+
+        for (int i = 0; i < 10_000; i++)
+            probe.onExecuted(i % 2, base + i * 1000L, base + i * 1000L + i, 1);
+
+        probe.stop();
+
+        File[] files = folder.listFiles();
+
+        Assert.assertEquals(1, files.length);
+
+        LatencyLogReader rdr = new LatencyLogReader(files[0]);
+
+        final AtomicLong cnt = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+
+        rdr.read(new LatencyLogReader.Visitor() {
+            @Override public void onRecord(int threadIdx, long start, long latency, int ops, int drvIdx) {
+                Assert.assertEquals(latency % 2, threadIdx);
+                Assert.assertEquals(base + latency * 1000L, start);
+                Assert.assertEquals(1, ops);
+
+                cnt.incrementAndGet();
+                sum.addAndGet(latency);
+            }
+        });
+
+        Assert.assertEquals(10_000, cnt.get());
+        Assert.assertEquals(9_999L * 10_000 / 2, sum.get());
+
+        LatencyHistogram hist = new LatencyHistogram(MINUTES.toNanos(1), 3);
+
+        rdr.histogram(base - rdr.startNanos(), base - rdr.startNanos() + 5_000_000L, hist);
+
+        Assert.assertEquals(5_000, hist.totalCount());
+        Assert.assertEquals(4_999, hist.maxValue());
+
+        for (File f : files)
+            f.delete();
+
+        folder.delete();
+    }
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testRegionsAndWarmup() throws Exception {
+        File folder = Files.createTempDirectory("latency-log").toFile();
+
+        BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.output(System.out);
+        cfg.threads(2);
+
+        Map<String, String> props = new HashMap<>();
+
+        props.put(LatencyLogProbe.FOLDER, folder.getPath());
+        props.put(LatencyLogProbe.BUFFER_SIZE, "1");
+
+        cfg.customProperties(props);
+
+        LatencyLogProbe probe = new LatencyLogProbe();
+
+        // Small regions, so that blocks span several of them.
+        probe.mapSize = 16 * 1024;
+
+        probe.start(new BenchmarkDriverAdapter() {
+            @Override public boolean test(Map<Object, Object> ctx) {
+                return true;
+            }
+        }, cfg);
+
+        for (int i = 0; i < 20_000; i++) {
+            long start = System.nanoTime();
+
+            probe.onExecuted(i % 2, start, start + 1, 1);
+        }
+
+        Thread.sleep(10);
+
+        // Warmup end.
+        probe.points();
+
+        Thread.sleep(10);
+
+        for (int i = 0; i < 30_000; i++) {
+            long start = System.nanoTime();
+
+            probe.onExecuted(i % 2, start, start + 2, 1);
+        }
+
+        probe.stop();
+
+        File[] files = folder.listFiles();
+
+        Assert.assertEquals(1, files.length);
+
+        File file = files[0];
+
+        Assert.assertTrue(file.length() > 4 * probe.mapSize);
+
+        LatencyLogReader rdr = new LatencyLogReader(file);
+
+        Assert.assertTrue(rdr.warmupEndNanos() > rdr.startNanos());
+
+        final AtomicLong cnt = new AtomicLong();
+
+        rdr.read(new LatencyLogReader.Visitor() {
+            @Override public void onRecord(int threadIdx, long start, long latency, int ops, int drvIdx) {
+                cnt.incrementAndGet();
+            }
+        });
+
+        Assert.assertEquals(50_000, cnt.get());
+
+        LatencyHistogram hist = new LatencyHistogram(MINUTES.toNanos(1), 3);
+
+        rdr.histogram(hist);
+
+        Assert.assertEquals(30_000, hist.totalCount());
+        Assert.assertEquals(2, hist.maxValue());
+
+        // Partially copied file ends with a truncated block.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        cnt.set(0);
+
+        new LatencyLogReader(file).read(new LatencyLogReader.Visitor() {
+            @Override public void onRecord(int threadIdx, long start, long latency, int ops, int drvIdx) {
+                cnt.incrementAndGet();
+            }
+        });
+
+        Assert.assertTrue(cnt.get() > 40_000 && cnt.get() < 50_000);
+
+        file.delete();
+
+        folder.delete();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.yardstickframework.probes.SaturationProbe.DRIVER_BOUND;
+import static org.yardstickframework.probes.SaturationProbe.INCONCLUSIVE;
+import static org.yardstickframework.probes.SaturationProbe.SERVER_BOUND;
+
+/**
+ * Test.
+ */
+public class SaturationProbeTest {
+    /**
+     * Closed-loop benchmark of an in-memory structure keeps workers on CPU all the time without any sign
+     * of the driver being short of resources.
+     */
+    @Test
+    public void testCpuBoundClosedLoop() {
+        Assert.assertEquals(INCONCLUSIVE, SaturationProbe.verdict(true, 99, 0.5, 0.1, 0.2));
+
+        // Busy workers with moderate run queue wait, GC pauses or timing overhead.
+        Assert.assertEquals(DRIVER_BOUND, SaturationProbe.verdict(true, 99, 3, 0.1, 0.2));
+        Assert.assertEquals(DRIVER_BOUND, SaturationProbe.verdict(true, 99, 0.5, 3, 0.2));
+        Assert.assertEquals(DRIVER_BOUND, SaturationProbe.verdict(true, 99, 0.5, 0.1, 2));
+    }
+
+    /**
+     */
+    @Test
+    public void testVerdict() {
+        Assert.assertEquals(DRIVER_BOUND, SaturationProbe.verdict(true, 40, 15, 0, 0));
+        Assert.assertEquals(DRIVER_BOUND, SaturationProbe.verdict(false, 0, 0, 12, 0));
+        Assert.assertEquals(SERVER_BOUND, SaturationProbe.verdict(true, 20, 0.5, 0.1, 0.2));
+
+        // Without scheduler statistics it is unknown whether workers waited for CPU.
+        Assert.assertEquals(INCONCLUSIVE, SaturationProbe.verdict(false, 0, 0, 0.1, 0.2));
+
+        Assert.assertEquals(INCONCLUSIVE, SaturationProbe.verdict(true, 70, 0.5, 0.1, 0.2));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.yardstickframework.probes;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.yardstickframework.BenchmarkConfiguration;
+import org.yardstickframework.BenchmarkDriverAdapter;
+import org.yardstickframework.BenchmarkProbePoint;
+import org.yardstickframework.BenchmarkUtils;
+
+/**
+ * Test.
+ */
+public class SchedStatProbeTest {
+    /** */
+    private static final int THREADS = 2;
+
+    /** */
+    private volatile boolean stop;
+
+    /**
+     * @throws Exception If failed.
+     */
+    @Test
+    public void testWorkersFound() throws Exception {
+        Assume.assumeTrue(WorkerTasks.available());
+
+        BenchmarkConfiguration cfg = new BenchmarkConfiguration();
+
+        cfg.output(System.out);
+        cfg.error(System.err);
+        cfg.threads(THREADS);
+
+        SchedStatProbe probe = new SchedStatProbe();
+
+        probe.start(new BenchmarkDriverAdapter() {
+            @Override public boolean test(Map<Object, Object> ctx) {
+                return true;
+            }
+        }, cfg);
+
+        final CountDownLatch registered = new CountDownLatch(THREADS);
+
+        Thread[] threads = new Thread[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            final int threadIdx = i;
+
+            // Names do not matter, on Java 8 the kernel does not know them.
+            threads[i] = new Thread(new Runnable() {
+                @Override public void run() {
+                    BenchmarkUtils.registerWorkerThread(threadIdx);
+
+                    registered.countDown();
+
+                    try {
+                        while (!stop) {
+                            // Busy on CPU.
+                        }
+                    }
+                    finally {
+                        BenchmarkUtils.unregisterWorkerThread();
+                    }
+                }
+            }, "spinner-" + i);
+
+            threads[i].start();
+        }
+
+        try {
+            registered.await();
+
+            point(probe);
+
+            Thread.sleep(300);
+
+            double[] vals = point(probe);
+
+            Assert.assertEquals(THREADS, (int)vals[0]);
+            Assert.assertTrue("Running: " + vals[1], vals[1] > 10);
+        }
+        finally {
+            stop = true;
+
+            for (Thread t : threads)
+                t.join();
+
+            probe.stop();
+        }
+
+        Assert.assertTrue(BenchmarkUtils.workerThreads().isEmpty());
+    }
+
+    /**
+     * @param probe Probe.
+     * @return Values of the built point.
+     * @throws Exception If failed.
+     */
+    private static double[] point(SchedStatProbe probe) throws Exception {
+        probe.buildPoint(System.currentTimeMillis());
+
+        for (int i = 0; i < 1000; i++) {
+            Collection<BenchmarkProbePoint> pnts = probe.points();
+
+            if (!pnts.isEmpty())
+                return pnts.iterator().next().values();
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("Point is not built.");
+    }
+}